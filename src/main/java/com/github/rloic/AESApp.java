@@ -3,6 +3,7 @@ package com.github.rloic;
 import com.github.rloic.aes.utils.KeyBits;
 import com.github.rloic.aes.models.abstractxor.AESGlobal;
 import com.github.rloic.aes.models.abstractxor.stepround.AESGlobalRoundMC;
+import com.github.rloic.constraints.abstractxor.AbstractXORPropagator;
 import com.github.rloic.filters.EnumFilter;
 import com.github.rloic.filters.EnumFilterRound;
 import com.github.rloic.strategy.WDeg;
@@ -98,6 +99,9 @@ public class AESApp {
          solver.printShortStatistics();
 
          AESGlobal aes = new AESGlobal(r, objStep1, keyBits, nbActives);
+         for (AbstractXORPropagator propagator : aes.propagators) {
+            propagator.learnExplanations(aes.m.getMinisat().getPropSat());
+         }
          Pair<Integer, Long> subResult = step1(
                aes.m,
                aes.sBoxes,
@@ -105,6 +109,8 @@ public class AESApp {
                objStep1
          );
 
+         aes.statistics.printShortStatistics(aes.m.getSolver());
+
          nbSolutions += subResult._0;
          nbNodes += subResult._1;
       }
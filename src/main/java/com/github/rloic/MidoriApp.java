@@ -2,6 +2,7 @@ package com.github.rloic;
 
 import com.github.rloic.filters.EnumFilter;
 import com.github.rloic.filters.EnumFilterRound;
+import com.github.rloic.constraints.abstractxor.AbstractXORPropagator;
 import com.github.rloic.midori.models.global.MidoriGlobal;
 import com.github.rloic.midori.models.global.gac.MidoriGlobalFull;
 import com.github.rloic.midori.models.global.round.MidoriGlobalRound;
@@ -76,6 +77,9 @@ public class MidoriApp {
             solver.printShortStatistics();
 
             MidoriGlobal midoriGlobalFull = new MidoriGlobalFull(r, objStep1, nbActives);
+            for (AbstractXORPropagator propagator : midoriGlobalFull.propagators) {
+                propagator.learnExplanations(midoriGlobalFull.m.getMinisat().getPropSat());
+            }
             Pair<Integer, Long> subResult = step1(
                     midoriGlobalFull.m,
                     midoriGlobalFull.sBoxes,
@@ -83,6 +87,8 @@ public class MidoriApp {
                     objStep1
             );
 
+            midoriGlobalFull.statistics.printShortStatistics(midoriGlobalFull.m.getSolver());
+
             nbSolutions += subResult._0;
             nbNodes += subResult._1;
         }
@@ -5,12 +5,15 @@ import com.github.rloic.common.DeconstructedModel;
 import com.github.rloic.common.ExtendedModel;
 import com.github.rloic.common.collections.BytePosition;
 import com.github.rloic.constraints.abstractxor.inferenceengine.impl.FullInferenceEngine;
-import com.github.rloic.constraints.abstractxor.rulesapplier.impl.FullRulesApplier;
+import com.github.rloic.constraints.abstractxor.rulesapplier.impl.CompiledRulesApplier;
 import com.github.rloic.common.utils.Pair;
 import com.github.rloic.wip.WeightedConstraint;
 import com.github.rloic.constraints.abstractxor.AbstractXORPropagator;
+import com.github.rloic.constraints.abstractxor.SBoxBudgetPropagator;
+import com.github.rloic.dancinglinks.XorStatistics;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
 
@@ -32,6 +35,8 @@ public class AESGlobal {
 
     public final Model m;
     public final AbstractXORPropagator propagator;
+    public final List<AbstractXORPropagator> propagators;
+    public final XorStatistics statistics;
     public final Int2ObjectMap<List<WeightedConstraint>> constraintsOf;
 
     public final BoolVar[] sBoxes;
@@ -191,12 +196,17 @@ public class AESGlobal {
 
         DeconstructedModel dm = em.build(
                 new FullInferenceEngine(),
-                new FullRulesApplier()
+                new CompiledRulesApplier()
         );
 
         this.m = dm.model;
         this.constraintsOf = dm.constraintsOf;
         this.propagator = dm.propagator;
+        this.propagators = dm.propagators;
+        this.statistics = dm.statistics;
+        if (SBoxBudgetPropagator.isEnabled()) {
+            m.post(new Constraint("S-box budget", new SBoxBudgetPropagator(propagators, sBoxes, m.intVar(objStep1))));
+        }
 
         if (nbActives != null) {
             for (int i = 0; i < r; i++) {
@@ -2,24 +2,36 @@ package com.github.rloic.common;
 
 import com.github.rloic.wip.WeightedConstraint;
 import com.github.rloic.constraints.abstractxor.AbstractXORPropagator;
+import com.github.rloic.dancinglinks.XorStatistics;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import org.chocosolver.solver.Model;
 
+import java.util.Comparator;
 import java.util.List;
 
 public class DeconstructedModel {
 
    public final Model model;
+   /* The propagator of the largest independent xor system (null if the model has no abstract xor) */
    public final AbstractXORPropagator propagator;
+   /* One propagator by independent xor system */
+   public final List<AbstractXORPropagator> propagators;
+   /* The counters of the work done by the propagators */
+   public final XorStatistics statistics;
    public final Int2ObjectMap<List<WeightedConstraint>> constraintsOf;
 
    public DeconstructedModel(
          Model model,
-         AbstractXORPropagator propagator,
+         List<AbstractXORPropagator> propagators,
+         XorStatistics statistics,
          Int2ObjectMap<List<WeightedConstraint>> constraintsOf
    ) {
       this.model = model;
-      this.propagator = propagator;
+      this.propagators = propagators;
+      this.propagator = propagators.stream()
+            .max(Comparator.comparingInt(it -> it.getNbVars()))
+            .orElse(null);
+      this.statistics = statistics;
       this.constraintsOf = constraintsOf;
    }
 }
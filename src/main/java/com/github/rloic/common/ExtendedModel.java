@@ -1,14 +1,23 @@
 package com.github.rloic.common;
 
 import com.github.rloic.common.abstraction.MathSet;
-import com.github.rloic.constraints.ByteXORPropagator;
+import com.github.rloic.constraints.GlobalByteXORPropagator;
 import com.github.rloic.constraints.abstractxor.inferenceengine.InferenceEngine;
 import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
+import com.github.rloic.dancinglinks.MatrixFactory;
+import com.github.rloic.dancinglinks.XorStatistics;
+import com.github.rloic.dancinglinks.impl.DancingLinksMatrix;
 import com.github.rloic.common.utils.Logger;
+import com.github.rloic.common.collections.UnionFind;
 import com.github.rloic.wip.WeightedConstraint;
 import com.github.rloic.constraints.abstractxor.AbstractXORPropagator;
 import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.constraints.extension.Tuples;
@@ -36,6 +45,10 @@ public class ExtendedModel {
    private final List<BoolVar> globalXorVariables = new ArrayList<>();
    private final List<BoolVar[]> globalXorEquations = new ArrayList<>();
 
+   private final List<IntVar> byteXorVariables = new ArrayList<>();
+   private final Object2IntMap<IntVar> byteXorIndexOf = new Object2IntOpenHashMap<>();
+   private final List<int[]> byteXorEquations = new ArrayList<>();
+
    public ExtendedModel(String name) {
       this.delegate = new Model(name);
    }
@@ -238,13 +251,7 @@ public class ExtendedModel {
    }
 
    public void byteXor(IntVar δA, IntVar δB, IntVar δC) {
-      IntVar[] variables = new IntVar[]{δA, δB, δC};
-      WeightedConstraint equalityConstraint = new WeightedConstraint<>(variables, this::notXor);
-      for (IntVar var : variables) {
-         constraintsOf.get(var.getId()).add(equalityConstraint);
-      }
-      delegate.post(new Constraint("byte xor", new ByteXORPropagator(δA, δB, δC)));
-      delegate.table(new IntVar[]{δA, δB, δC}, xor3_8bits, "FC").post();
+      byteXorOf(δA, δB, δC);
    }
 
    public void xor(ByteVar δA, ByteVar δB, ByteVar δC) {
@@ -258,17 +265,23 @@ public class ExtendedModel {
    }
 
    public void byteXor(IntVar δA, IntVar δB, IntVar δC, IntVar δD) {
-      // delegate.post(new Constraint("byte xor", new ByteXORPropagator(δA, δB, δC, δD)));
-      //delegate.table(new IntVar[]{δA, δB, δC, δD}, xor4_8bits, "FC");
-      IntVar diffAB_CD = intVar("diff_AB_CD", 0, DEFAULT_UPPER_BOUND);
-      IntVar diffAC_BD = intVar("diff_AC_BD", 0, DEFAULT_UPPER_BOUND);
-      IntVar diffAD_BC = intVar("diff_AD_BC", 0, DEFAULT_UPPER_BOUND);
-      byteXor(diffAB_CD, δA, δB);
-      byteXor(diffAB_CD, δC, δD);
-      byteXor(diffAC_BD, δA, δC);
-      byteXor(diffAC_BD, δB, δD);
-      byteXor(diffAD_BC, δA, δD);
-      byteXor(diffAD_BC, δB, δC);
+      byteXorOf(δA, δB, δC, δD);
+   }
+
+   /* The xor is posted with the other byte xors of the model (see postByteXors) */
+   private void byteXorOf(IntVar... equation) {
+      WeightedConstraint xorConstraint = new WeightedConstraint<>(equation, this::notXor);
+      int[] row = new int[equation.length];
+      for (int i = 0; i < equation.length; i++) {
+         constraintsOf.get(equation[i].getId()).add(xorConstraint);
+
+         if (!byteXorIndexOf.containsKey(equation[i])) {
+            byteXorIndexOf.put(equation[i], byteXorVariables.size());
+            byteXorVariables.add(equation[i]);
+         }
+         row[i] = byteXorIndexOf.getInt(equation[i]);
+      }
+      byteXorEquations.add(row);
    }
 
    public void abstractXor(BoolVar... equation) {
@@ -285,34 +298,162 @@ public class ExtendedModel {
 
    // Generate custom WDeg utilities
    public DeconstructedModel build(InferenceEngine inferenceEngine, RulesApplier rulesApplier) {
-      if (globalXorVariables.size() != 0) {
-         BoolVar[] vars = new BoolVar[globalXorVariables.size()];
-         globalXorVariables.toArray(vars);
-
-         BoolVar[][] xors = new BoolVar[globalXorEquations.size()][];
-         globalXorEquations.toArray(xors);
+      return build(inferenceEngine, rulesApplier, DancingLinksMatrix::new);
+   }
 
-         AbstractXORPropagator propagator = new AbstractXORPropagator(
-               vars,
-               xors,
+   public DeconstructedModel build(
+         InferenceEngine inferenceEngine,
+         RulesApplier rulesApplier,
+         MatrixFactory matrixFactory
+   ) {
+      postByteXors();
+      XorStatistics statistics = new XorStatistics();
+      List<AbstractXORPropagator> propagators = new ArrayList<>();
+      for (BoolVar[][] component : components(presolve())) {
+         propagators.add(new AbstractXORPropagator(
+               variablesOf(component),
+               component,
                inferenceEngine,
                rulesApplier,
-               delegate.getSolver()
-         );
-         delegate.post(new Constraint("Global XOR", propagator));
+               matrixFactory,
+               delegate.getSolver(),
+               statistics
+         ));
+      }
+      if (!propagators.isEmpty()) {
+         delegate.post(new Constraint("Global XOR", propagators.toArray(new AbstractXORPropagator[0])));
+      }
+      return new DeconstructedModel(
+            delegate,
+            propagators,
+            statistics,
+            constraintsOf
+      );
+   }
+
+   /**
+    * Post the byte xors declared since the last call as a single global constraint
+    * It is done by build, a model that is not built must call it once its xors are declared.
+    */
+   public void postByteXors() {
+      if (!byteXorEquations.isEmpty()) {
+         IntVar[] vars = byteXorVariables.toArray(new IntVar[0]);
+         int[][] equations = byteXorEquations.toArray(new int[0][]);
+         delegate.post(new Constraint("Global byte XOR", new GlobalByteXORPropagator(vars, equations)));
+         byteXorVariables.clear();
+         byteXorIndexOf.clear();
+         byteXorEquations.clear();
+      }
+   }
+
+   /**
+    * Simplify the abstract xors before they reach the matrices
+    * A variable that appears twice in an equation cancels itself, an equation with a single variable fixes it to
+    * false and an equation with two variables equates them: the second variable is replaced by the first one in the
+    * other equations and the equality is posted, so that the merged BoolVars keep their values. The posted constraints
+    * are registered with the other constraints of their variables. The empty and the repeated equations are dropped.
+    * The rules are applied again until no variable is merged.
+    * The variables that appear in a single equation are kept: the propagator relies on the combinations of their
+    * equation with the other ones, that would be lost if the equation was checked on its own.
+    * @return The simplified equations (the declared equations are not modified)
+    */
+   private List<BoolVar[]> presolve() {
+      Object2IntMap<BoolVar> indexOf = globalXorIndices();
+      UnionFind representatives = new UnionFind(globalXorVariables.size());
+      List<BoolVar[]> equations = globalXorEquations;
+      boolean merged = true;
+      while (merged) {
+         merged = false;
+         List<BoolVar[]> simplified = new ArrayList<>();
+         Set<IntList> distinctRows = new HashSet<>();
+         for (BoolVar[] equation : equations) {
+            int[] row = representativesOf(equation, indexOf, representatives);
+            if (row.length == 1) {
+               BoolVar variable = globalXorVariables.get(row[0]);
+               post(delegate.arithm(variable, "=", 0), new Variable[]{variable});
+            } else if (row.length == 2) {
+               representatives.union(row[1], row[0]);
+               BoolVar lhs = globalXorVariables.get(row[0]);
+               BoolVar rhs = globalXorVariables.get(row[1]);
+               post(delegate.arithm(lhs, "=", rhs), new Variable[]{lhs, rhs});
+               merged = true;
+            } else if (row.length != 0 && distinctRows.add(IntArrayList.wrap(row))) {
+               BoolVar[] variables = new BoolVar[row.length];
+               for (int i = 0; i < row.length; i++) {
+                  variables[i] = globalXorVariables.get(row[i]);
+               }
+               simplified.add(variables);
+            }
+         }
+         equations = simplified;
+      }
+      return equations;
+   }
 
-         return new DeconstructedModel(
-               delegate,
-               propagator,
-               constraintsOf
-         );
-      } else {
-         return new DeconstructedModel(
-               delegate,
-               null,
-               constraintsOf
-         );
+   /* The representatives of the variables that appear an odd number of times in the equation, in increasing order */
+   private static int[] representativesOf(BoolVar[] equation, Object2IntMap<BoolVar> indexOf, UnionFind representatives) {
+      int[] sorted = new int[equation.length];
+      for (int i = 0; i < equation.length; i++) {
+         sorted[i] = representatives.find(indexOf.getInt(equation[i]));
       }
+      Arrays.sort(sorted);
+      IntList row = new IntArrayList();
+      for (int variable : sorted) {
+         if (!row.isEmpty() && row.getInt(row.size() - 1) == variable) {
+            row.removeInt(row.size() - 1);
+         } else {
+            row.add(variable);
+         }
+      }
+      return row.toIntArray();
+   }
+
+   /* The index of each variable of the abstract xors, in the order of their declaration */
+   private Object2IntMap<BoolVar> globalXorIndices() {
+      Object2IntMap<BoolVar> indexOf = new Object2IntOpenHashMap<>();
+      for (BoolVar var : globalXorVariables) {
+         indexOf.put(var, indexOf.size());
+      }
+      return indexOf;
+   }
+
+   /**
+    * Split the abstract xors into independent systems
+    * Two equations are in the same system if they are linked by a chain of equations sharing a variable. A
+    * combination of equations never crosses two systems, so each system can be eliminated and propagated on its own.
+    * @param equations The abstract xors
+    * @return The equations of each system (in the order of their first equation)
+    */
+   private List<BoolVar[][]> components(List<BoolVar[]> equations) {
+      Object2IntMap<BoolVar> indexOf = globalXorIndices();
+      UnionFind components = new UnionFind(globalXorVariables.size());
+      for (BoolVar[] equation : equations) {
+         for (int i = 1; i < equation.length; i++) {
+            components.union(indexOf.getInt(equation[0]), indexOf.getInt(equation[i]));
+         }
+      }
+
+      Int2ObjectMap<List<BoolVar[]>> equationsOf = new Int2ObjectLinkedOpenHashMap<>();
+      for (BoolVar[] equation : equations) {
+         int component = components.find(indexOf.getInt(equation[0]));
+         equationsOf.computeIfAbsent(component, ignored -> new ArrayList<>()).add(equation);
+      }
+      List<BoolVar[][]> result = new ArrayList<>();
+      for (List<BoolVar[]> system : equationsOf.values()) {
+         result.add(system.toArray(new BoolVar[0][]));
+      }
+      return result;
+   }
+
+   /* The variables of the equations, in the order of their declaration */
+   private BoolVar[] variablesOf(BoolVar[][] equations) {
+      Set<BoolVar> variables = new HashSet<>();
+      for (BoolVar[] equation : equations) {
+         variables.addAll(Arrays.asList(equation));
+      }
+      return globalXorVariables.stream()
+            .filter(variables::contains)
+            .toArray(BoolVar[]::new);
    }
 
    public DeconstructedModel buildWithWeightedConstraintsGeneration(
@@ -458,33 +599,6 @@ public class ExtendedModel {
       }
    }
 
-   private Tuples xor3_8bits = xor3(256);
-   // private Tuples xor4_8bits = xor4(256);
-
-   private Tuples xor3(int max) {
-      int[][] xor3 = new int[max * max][3];
-      int cpt = 0;
-      for (int i = 0; i < max; i++) {
-         for (int j = 0; j < max; j++) {
-            xor3[cpt++] = new int[]{i, j, i ^ j};
-         }
-      }
-      return new Tuples(xor3, true);
-   }
-
-   private Tuples xor4(int max) {
-      int[][] xor4 = new int[max * max * max][4];
-      int cpt = 0;
-      for (int i = 0; i < max; i++) {
-         for (int j = 0; j < max; j++) {
-            for (int k = 0; k < max; k++) {
-               xor4[cpt++] = new int[]{i, j, k, i ^ j ^ k};
-            }
-         }
-      }
-      return new Tuples(xor4, true);
-   }
-
    private <V extends Variable> V declare(V variable) {
       constraintsOf.put(variable.getId(), new ArrayList<>());
       return variable;
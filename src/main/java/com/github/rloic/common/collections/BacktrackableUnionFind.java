@@ -0,0 +1,110 @@
+package com.github.rloic.common.collections;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A union find whose unions can be undone in the reverse order
+ * The trees are merged by size and never compressed, so that undoing a union only detaches the root of the smaller
+ * tree. The elements of a set are also linked in a circular list (the lists of two roots are spliced by a swap of
+ * their successors, that a second swap undoes).
+ */
+public class BacktrackableUnionFind {
+
+    private final int[] parentOf;
+    private final int[] sizeOf;
+    private final int[] nextOf;
+
+    /* The roots attached by the unions, in the order of the unions */
+    private final int[] attached;
+    private int nbUnions;
+
+    public BacktrackableUnionFind(int nbElements) {
+        parentOf = new int[nbElements];
+        sizeOf = new int[nbElements];
+        nextOf = new int[nbElements];
+        attached = new int[nbElements];
+        for (int element = 0; element < nbElements; element++) {
+            parentOf[element] = element;
+            sizeOf[element] = 1;
+            nextOf[element] = element;
+        }
+    }
+
+    public int find(int element) {
+        int node = element;
+        while (parentOf[node] != node) {
+            node = parentOf[node];
+        }
+        return node;
+    }
+
+    public boolean sameSet(int lhs, int rhs) {
+        return find(lhs) == find(rhs);
+    }
+
+    /**
+     * Merge the sets of the two elements
+     * @param lhs An element
+     * @param rhs An element
+     * @return true if the elements were in distinct sets
+     */
+    public boolean union(int lhs, int rhs) {
+        int lhsRoot = find(lhs);
+        int rhsRoot = find(rhs);
+        if (lhsRoot == rhsRoot) {
+            return false;
+        }
+        if (sizeOf[lhsRoot] < sizeOf[rhsRoot]) {
+            int tmp = lhsRoot;
+            lhsRoot = rhsRoot;
+            rhsRoot = tmp;
+        }
+        parentOf[rhsRoot] = lhsRoot;
+        sizeOf[lhsRoot] += sizeOf[rhsRoot];
+        swapNext(lhsRoot, rhsRoot);
+        attached[nbUnions++] = rhsRoot;
+        return true;
+    }
+
+    /**
+     * Apply the action on each element of the set of the element (itself included)
+     * @param element The element
+     * @param action The action
+     */
+    public void forEachInSetOf(int element, IntConsumer action) {
+        int member = element;
+        do {
+            action.accept(member);
+            member = nextOf[member];
+        } while (member != element);
+    }
+
+    /**
+     * Return the number of unions, the sets can be brought back to the current state with undo(size)
+     * @return The number of unions
+     */
+    public int size() {
+        return nbUnions;
+    }
+
+    /**
+     * Undo the unions done after the given number of unions
+     * @param mark The number of unions to go back to
+     */
+    public void undo(int mark) {
+        while (nbUnions > mark) {
+            int root = attached[--nbUnions];
+            int parent = parentOf[root];
+            swapNext(parent, root);
+            sizeOf[parent] -= sizeOf[root];
+            parentOf[root] = root;
+        }
+    }
+
+    private void swapNext(int lhs, int rhs) {
+        int tmp = nextOf[lhs];
+        nextOf[lhs] = nextOf[rhs];
+        nextOf[rhs] = tmp;
+    }
+
+}
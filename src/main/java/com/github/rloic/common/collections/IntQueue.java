@@ -0,0 +1,61 @@
+package com.github.rloic.common.collections;
+
+/**
+ * A FIFO queue of integers in [0, capacity) that contains each element at most once
+ * Adding an element that is already in the queue does nothing. The queue is a ring buffer of the capacity, so it
+ * never allocates after its creation.
+ */
+public class IntQueue {
+
+    public static final int EMPTY = -1;
+
+    private final int[] elements;
+    private final boolean[] isQueued;
+    private int head;
+    private int size;
+
+    public IntQueue(int capacity) {
+        elements = new int[capacity];
+        isQueued = new boolean[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void add(int element) {
+        if (!isQueued[element]) {
+            isQueued[element] = true;
+            int tail = head + size;
+            elements[tail < elements.length ? tail : tail - elements.length] = element;
+            size += 1;
+        }
+    }
+
+    /**
+     * Remove the first element of the queue
+     * @return The first element (if one) else EMPTY
+     */
+    public int poll() {
+        if (size == 0) {
+            return EMPTY;
+        }
+        int element = elements[head];
+        isQueued[element] = false;
+        head = head + 1 < elements.length ? head + 1 : 0;
+        size -= 1;
+        return element;
+    }
+
+    public void clear() {
+        while (size != 0) {
+            poll();
+        }
+        head = 0;
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.github.rloic.common.collections;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of integers in [0, capacity) backed by a dense array and the position of each element in it
+ * add, remove and contains are O(1). A removed element is swapped just after the last element of the set, so
+ * adding back the elements in the reverse order of their removal (LIFO) only moves the size.
+ */
+public class SparseSet {
+
+    private final int[] dense;
+    private final int[] positionOf;
+    private int size;
+
+    /**
+     * Create an empty set
+     * @param capacity The elements are in [0, capacity)
+     */
+    public SparseSet(int capacity) {
+        dense = new int[capacity];
+        positionOf = new int[capacity];
+        clear();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int element) {
+        return positionOf[element] < size;
+    }
+
+    /**
+     * Return the i-th element of the set (the order changes when the set is modified)
+     * @param i The index of the element in [0, size)
+     * @return The element
+     */
+    public int get(int i) {
+        return dense[i];
+    }
+
+    public void add(int element) {
+        int position = positionOf[element];
+        if (position >= size) {
+            swap(position, size);
+            size += 1;
+        }
+    }
+
+    public void remove(int element) {
+        int position = positionOf[element];
+        if (position < size) {
+            size -= 1;
+            swap(position, size);
+        }
+    }
+
+    /* Empty the set, the dense array keeps a permutation of [0, capacity) */
+    public void clear() {
+        for (int element = 0; element < dense.length; element++) {
+            dense[element] = element;
+            positionOf[element] = element;
+        }
+        size = 0;
+    }
+
+    /**
+     * Return a copy of the elements, it can be iterated while the set is modified
+     * @return The elements of the set
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(dense, size);
+    }
+
+    /**
+     * Copy the elements into the buffer in increasing order
+     * @param buffer An array of length at least size
+     * @return The number of elements
+     */
+    public int toSortedArray(int[] buffer) {
+        System.arraycopy(dense, 0, buffer, 0, size);
+        Arrays.sort(buffer, 0, size);
+        return size;
+    }
+
+    /**
+     * Apply the action on each element, the set must not be modified by the action
+     * @param action The action
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(dense[i]);
+        }
+    }
+
+    private void swap(int i, int j) {
+        int first = dense[i];
+        int second = dense[j];
+        dense[i] = second;
+        positionOf[second] = i;
+        dense[j] = first;
+        positionOf[first] = j;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < size; i++) {
+            if (i != 0) builder.append(", ");
+            builder.append(dense[i]);
+        }
+        return builder.append('}').toString();
+    }
+
+}
@@ -0,0 +1,225 @@
+package com.github.rloic.constraints;
+
+import com.github.rloic.common.collections.IntQueue;
+import com.github.rloic.constraints.abstractxor.GaussCache;
+import com.github.rloic.constraints.abstractxor.XorSystem;
+import com.github.rloic.dancinglinks.IDancingLinksMatrix;
+import com.github.rloic.dancinglinks.impl.DancingLinksMatrix;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.events.IntEventType;
+import org.chocosolver.solver.variables.events.PropagatorEventType;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.objects.setDataStructures.iterable.IntIterableRangeSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A global constraint over the concrete xors of a model (the xor of the values of each equation is 0)
+ * The equations are seen as one linear system over GF(2), shared by the bit planes of the values: the system is put
+ * in echelon form once (with the elimination of the abstract xors) and the rows of the reduced basis are propagated
+ * along the initial equations.
+ * A row is propagated plane by plane: a bit that is unknown in only one variable of the row is fixed to the parity of
+ * the known bits of the other variables. The known bits of a variable are the common prefix of its bounds (all its
+ * bits once it is instantiated).
+ */
+public class GlobalByteXORPropagator extends Propagator<IntVar> {
+
+   private final int[][] rows;
+   private final int[][] rowsOf;
+   private final int mask;
+   private final IntQueue modifiedRows;
+   private final IntIterableRangeSet removedValues = new IntIterableRangeSet();
+
+   /**
+    * @param vars The variables of the xors
+    * @param equations The equations (each equation is the list of the indices of its variables), a variable that
+    *                  appears twice in an equation cancels itself
+    */
+   public GlobalByteXORPropagator(IntVar[] vars, int[][] equations) {
+      super(vars, PropagatorPriority.LINEAR, true);
+      int upperBound = 0;
+      for (IntVar var : vars) {
+         upperBound |= var.getUB();
+      }
+      mask = upperBound == 0 ? 0 : -1 >>> Integer.numberOfLeadingZeros(upperBound);
+      rows = reducedSystem(equations, vars.length);
+      rowsOf = rowsOf(rows, vars.length);
+      modifiedRows = new IntQueue(rows.length);
+   }
+
+   @Override
+   public int getPropagationConditions(int vIdx) {
+      return IntEventType.boundAndInst();
+   }
+
+   @Override
+   public void propagate(int evtmask) throws ContradictionException {
+      if (PropagatorEventType.isFullPropagation(evtmask)) {
+         for (int row = 0; row < rows.length; row++) {
+            modifiedRows.add(row);
+         }
+      }
+      try {
+         for (int row = modifiedRows.poll(); row != IntQueue.EMPTY; row = modifiedRows.poll()) {
+            filter(rows[row]);
+         }
+      } finally {
+         modifiedRows.clear();
+      }
+   }
+
+   @Override
+   public void propagate(int idxVarInProp, int event) throws ContradictionException {
+      for (int row : rowsOf[idxVarInProp]) {
+         modifiedRows.add(row);
+      }
+      forcePropagate(PropagatorEventType.CUSTOM_PROPAGATION);
+   }
+
+   /* Fix the bits of the row that are unknown in a single variable */
+   private void filter(int[] row) throws ContradictionException {
+      int parity = 0;
+      int unknownOnce = 0;
+      int unknownTwice = 0;
+      for (int variable : row) {
+         int known = knownBits(vars[variable]);
+         parity ^= vars[variable].getLB() & known;
+         unknownTwice |= unknownOnce & ~known;
+         unknownOnce |= ~known & mask;
+      }
+      int unknownInOneVariable = unknownOnce & ~unknownTwice;
+      if ((parity & ~unknownOnce) != 0) {
+         fails();
+      }
+      if (unknownInOneVariable == 0) {
+         return;
+      }
+      for (int variable : row) {
+         int fixed = ~knownBits(vars[variable]) & unknownInOneVariable;
+         if (fixed != 0 && restrict(variable, fixed, parity & fixed)) {
+            for (int modified : rowsOf[variable]) {
+               modifiedRows.add(modified);
+            }
+         }
+      }
+   }
+
+   /* The bits shared by all the values in the bounds of the variable */
+   private int knownBits(IntVar var) {
+      int lb = var.getLB();
+      int ub = var.getUB();
+      if (lb == ub) {
+         return mask;
+      }
+      return ~(-1 >>> Integer.numberOfLeadingZeros(lb ^ ub)) & mask;
+   }
+
+   /* Remove the values of the variable whose bits of the mask differ from the expected bits */
+   private boolean restrict(int variable, int bits, int expected) throws ContradictionException {
+      IntVar var = vars[variable];
+      if (bits == mask) {
+         return var.instantiateTo(expected, this);
+      }
+      removedValues.clear();
+      for (int value = var.getLB(); value <= var.getUB(); value = var.nextValue(value)) {
+         if ((value & bits) != expected) {
+            removedValues.add(value);
+         }
+      }
+      return var.removeValues(removedValues, this);
+   }
+
+   @Override
+   public ESat isEntailed() {
+      boolean entailed = true;
+      for (int[] row : rows) {
+         int parity = 0;
+         for (int variable : row) {
+            if (!vars[variable].isInstantiated()) {
+               entailed = false;
+               parity = 0;
+               break;
+            }
+            parity ^= vars[variable].getValue();
+         }
+         if (parity != 0) {
+            return ESat.FALSE;
+         }
+      }
+      return entailed ? ESat.TRUE : ESat.UNDEFINED;
+   }
+
+   /*
+    * The initial equations followed by the rows of the reduced basis that are not initial equations
+    * The basis is computed on the dancing links matrix (and shared with the other models built on the same equations)
+    */
+   private static int[][] reducedSystem(int[][] equations, int nbVariables) {
+      List<int[]> rows = new ArrayList<>();
+      Set<IntList> distinctRows = new HashSet<>();
+      for (int[] equation : equations) {
+         int[] row = cancelDuplicates(equation);
+         if (row.length != 0 && distinctRows.add(IntArrayList.wrap(row))) {
+            rows.add(row);
+         }
+      }
+      int[][] initialRows = rows.toArray(new int[0][]);
+
+      XorSystem system = XorSystem.of(initialRows, nbVariables);
+      IDancingLinksMatrix matrix = system.newMatrix(DancingLinksMatrix::new);
+      system.gauss(matrix, GaussCache.fromSystemProperties());
+      for (int equation : matrix.activeEquations()) {
+         IntList variables = new IntArrayList();
+         for (int variable : matrix.variablesOf(equation)) {
+            variables.add(variable);
+         }
+         int[] row = variables.toIntArray();
+         Arrays.sort(row);
+         if (row.length != 0 && distinctRows.add(IntArrayList.wrap(row))) {
+            rows.add(row);
+         }
+      }
+      return rows.toArray(new int[0][]);
+   }
+
+   /* The variables that appear an odd number of times in the equation, in increasing order */
+   private static int[] cancelDuplicates(int[] equation) {
+      int[] sorted = equation.clone();
+      Arrays.sort(sorted);
+      IntList variables = new IntArrayList();
+      for (int variable : sorted) {
+         if (!variables.isEmpty() && variables.getInt(variables.size() - 1) == variable) {
+            variables.removeInt(variables.size() - 1);
+         } else {
+            variables.add(variable);
+         }
+      }
+      return variables.toIntArray();
+   }
+
+   private static int[][] rowsOf(int[][] rows, int nbVariables) {
+      IntList[] rowsOf = new IntList[nbVariables];
+      for (int variable = 0; variable < nbVariables; variable++) {
+         rowsOf[variable] = new IntArrayList();
+      }
+      for (int row = 0; row < rows.length; row++) {
+         for (int variable : rows[row]) {
+            rowsOf[variable].add(row);
+         }
+      }
+      int[][] result = new int[nbVariables][];
+      for (int variable = 0; variable < nbVariables; variable++) {
+         result[variable] = rowsOf[variable].toIntArray();
+      }
+      return result;
+   }
+
+}
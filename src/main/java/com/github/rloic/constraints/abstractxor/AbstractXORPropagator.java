@@ -1,12 +1,19 @@
 package com.github.rloic.constraints.abstractxor;
 
+import com.github.rloic.common.collections.BacktrackableUnionFind;
+import com.github.rloic.common.collections.IntQueue;
 import com.github.rloic.dancinglinks.IDancingLinksMatrix;
+import com.github.rloic.dancinglinks.MatrixFactory;
+import com.github.rloic.dancinglinks.Origins;
+import com.github.rloic.dancinglinks.PivotPolicy;
+import com.github.rloic.dancinglinks.Trail;
+import com.github.rloic.dancinglinks.XorStatistics;
 import com.github.rloic.dancinglinks.actions.*;
 import com.github.rloic.dancinglinks.impl.DancingLinksMatrix;
 import com.github.rloic.constraints.abstractxor.inferenceengine.InferenceEngine;
-import com.github.rloic.constraints.abstractxor.inferenceengine.impl.FullInferenceEngine;
 import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
-import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.chocosolver.sat.PropSat;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
@@ -14,6 +21,7 @@ import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.search.loop.monitors.IMonitorDownBranch;
 import org.chocosolver.solver.search.loop.monitors.IMonitorUpBranch;
 import org.chocosolver.solver.variables.BoolVar;
+import org.chocosolver.solver.variables.events.PropagatorEventType;
 import org.chocosolver.util.ESat;
 
 import java.util.*;
@@ -35,10 +43,23 @@ public class AbstractXORPropagator extends Propagator<BoolVar> implements IMonit
    /* The solver */
    private final Solver solver;
 
-   /* The commands applied on the state matrix */
-   private final Stack<UpdaterList> commands;
+   /* The undo log of the modifications of the matrix */
+   private final Trail trail;
 
-   /* The matrix that represents the abstract xor system */
+   /* The size of the trail before each decision (the first mark is the root node) */
+   private final IntArrayList marks;
+
+   /* The classes of the variables known to be equal in the current branch and their number of unions before each decision */
+   private final BacktrackableUnionFind equivalences;
+   private final IntArrayList equivalenceMarks;
+
+   /* The initial equations (the columns of their variables) */
+   private final int[][] equations;
+
+   /* The abstract xor system (shared with the other propagators built on the same equations) */
+   private final XorSystem system;
+
+   /* The matrix that represents the state of the abstract xor system in this solver */
    public final IDancingLinksMatrix matrix;
 
    /* The variable column of a BoolVar in the matrix */
@@ -50,28 +71,84 @@ public class AbstractXORPropagator extends Propagator<BoolVar> implements IMonit
    /* The rules applier (it manipulates the matrix) */
    private final RulesApplier rulesApplier;
 
+   /* The cache of the Gauss eliminations (null if disabled) */
+   private final GaussCache gaussCache;
+
+   /* The buffer of the unit equations polled from the matrix */
+   private final int[] unitEquations;
+
+   /* The variables instantiated by Choco since the last synchronization, and the buffers of their assignments */
+   private final IntQueue assignedVariables;
+   private final int[] assignedColumns;
+   private final boolean[] assignedValues;
+
+   /* The number of variables fixed by the inferences of the current synchronization */
+   private int nbPruned;
+
+   /* The SAT propagator that stores the explanations of the failures as learnt clauses (null if disabled) */
+   private PropSat explanations;
+
+   /* The origins of the equations since the root node and the variables of the equations at the root node */
+   private Origins origins;
+   private int[][] rootEquations;
+
+   /* The buffers of the explanations: the parity of each variable in the sum of the origins and the odd variables */
+   private final boolean[] inSum;
+   private final IntArrayList sumVariables;
+
+   /* The counters of the work done by the propagator (shared with the other propagators of the model) */
+   private final XorStatistics statistics;
+
+   public AbstractXORPropagator(
+         BoolVar[] vars,
+         BoolVar[][] xors,
+         InferenceEngine engine,
+         RulesApplier rulesApplier,
+         Solver solver
+   ) {
+      this(vars, xors, engine, rulesApplier, DancingLinksMatrix::new, solver);
+   }
+
    public AbstractXORPropagator(
          BoolVar[] vars,
          BoolVar[][] xors,
          InferenceEngine engine,
          RulesApplier rulesApplier,
+         MatrixFactory matrixFactory,
          Solver solver
+   ) {
+      this(vars, xors, engine, rulesApplier, matrixFactory, solver, new XorStatistics());
+   }
+
+   public AbstractXORPropagator(
+         BoolVar[] vars,
+         BoolVar[][] xors,
+         InferenceEngine engine,
+         RulesApplier rulesApplier,
+         MatrixFactory matrixFactory,
+         Solver solver,
+         XorStatistics statistics
    ) {
       super(vars, PropagatorPriority.QUADRATIC, true);
 
-      this.commands = new Stack<>();
-      commands.push(new UpdaterList());
+      this.trail = new Trail();
+      this.marks = new IntArrayList();
+      marks.push(0);
+      this.equivalences = new BacktrackableUnionFind(vars.length);
+      this.equivalenceMarks = new IntArrayList();
+      equivalenceMarks.push(0);
 
       this.engine = engine;
       this.rulesApplier = rulesApplier;
       this.solver = solver;
+      this.gaussCache = GaussCache.fromSystemProperties();
 
       indexOf = new HashMap<>();
       int lastIndex = 0;
       for (BoolVar variable : vars) {
          indexOf.put(variable, lastIndex++);
       }
-      int[][] equations = new int[xors.length][];
+      equations = new int[xors.length][];
       for (int i = 0; i < xors.length; i++) {
          final int length = xors[i].length;
          equations[i] = new int[length];
@@ -79,23 +156,83 @@ public class AbstractXORPropagator extends Propagator<BoolVar> implements IMonit
             equations[i][j] = indexOf.get(xors[i][j]);
          }
       }
-      matrix = new DancingLinksMatrix(equations, lastIndex);
+      system = XorSystem.of(equations, lastIndex);
+      matrix = system.newMatrix(matrixFactory);
+      unitEquations = new int[matrix.nbEquations()];
+      assignedVariables = new IntQueue(vars.length);
+      assignedColumns = new int[vars.length];
+      assignedValues = new boolean[vars.length];
+      inSum = new boolean[vars.length];
+      sumVariables = new IntArrayList();
+      this.statistics = statistics;
+      matrix.setStatistics(statistics);
+      matrix.setPivotPolicy(PivotPolicy.fromSystemProperties(statistics));
+      rulesApplier.setStatistics(statistics);
       solver.plugMonitor(this);
    }
 
+   public XorStatistics getStatistics() {
+      return statistics;
+   }
+
+   /**
+    * Learn a clause each time the propagator fails on an invalid equation
+    * The clause forbids the current assignment of the variables of the sum of the root equations that gives the
+    * invalid equation, so that the same dead-end is not explored again in the other branches. It must be called
+    * before the resolution.
+    * @param propSat The SAT propagator of the model (see Model#getMinisat)
+    */
+   public void learnExplanations(PropSat propSat) {
+      this.explanations = propSat;
+   }
+
    @Override
    public int arity() {
       return matrix.numberOfUndefinedVariables();
    }
 
    @Override
-   public void propagate(int evtmask) {
-      RulesApplier.gauss(matrix);
+   public void propagate(int evtmask) throws ContradictionException {
+      if (PropagatorEventType.isFullPropagation(evtmask)) {
+         propagateRoot();
+         return;
+      }
+      List<Propagation> propagations;
+      long start = System.nanoTime();
+      nbPruned = 0;
+      try {
+         propagations = synchronize();
+      } catch (ContradictionException failure) {
+         rulesApplier.onSynchronization(System.nanoTime() - start, matrix.numberOfUndefinedVariables());
+         throw failure;
+      } finally {
+         assignedVariables.clear();
+      }
+      rulesApplier.onSynchronization(System.nanoTime() - start, nbPruned);
+      for (Propagation propagation : propagations) {
+         // Will propagate to inferences through Choco
+         propagation.propagate(vars, this);
+      }
+   }
+
+   /*
+    * The variables instantiated together (for instance by the same propagator of Choco) are synchronized in one batch
+    * once all their events are received, so that the rules are applied once for all of them
+    */
+   @Override
+   public void propagate(int idxVarInProp, int mask) throws ContradictionException {
+      assignedVariables.add(idxVarInProp);
+      forcePropagate(PropagatorEventType.CUSTOM_PROPAGATION);
+   }
+
+   private void propagateRoot() {
+      long start = System.nanoTime();
+      system.gauss(matrix, gaussCache);
+      statistics.onGauss(System.nanoTime() - start);
       assert checkState(matrix);
       List<Propagation> propagations = new ArrayList<>();
-      for (int equation : matrix.activeEquations()) {
-         propagations.addAll(engine.infer(matrix, equation));
-      }
+      matrix.forEachActiveEquation(equation -> propagations.addAll(engine.infer(matrix, equation)));
+      statistics.onEquationInferences(propagations.size());
 
       IUpdater updater;
       for (int i = 0; i < propagations.size(); i++) {
@@ -113,17 +250,32 @@ public class AbstractXORPropagator extends Propagator<BoolVar> implements IMonit
 
       assert checkState(matrix);
 
+      // The elimination and the inferences of the root node are never undone, only the next ones are recorded
+      matrix.setTrail(trail);
+      if (explanations != null) {
+         trackOrigins();
+      }
+
       for (int idxVarInProp = 0; idxVarInProp < vars.length; idxVarInProp++) {
          if (vars[idxVarInProp].isInstantiated()) {
-            try {
-               propagations.addAll(synchronize(idxVarInProp));
-            } catch (ContradictionException e) {
-               throw new RuntimeException(e);
-            }
+            assignedVariables.add(idxVarInProp);
          }
       }
+      try {
+         propagations.addAll(synchronize());
+      } catch (ContradictionException e) {
+         throw new RuntimeException(e);
+      } finally {
+         assignedVariables.clear();
+      }
 
       assert checkState(matrix);
+      // The root elimination may rebuild the matrix from the cache, so every equation is read once
+      matrix.forEachActiveEquation(equation -> {
+         if (matrix.nbUnknowns(equation) == 2 && matrix.nbTrues(equation) == 0) {
+            recordEquivalence(equation);
+         }
+      });
 
       for (Propagation propagation : propagations) {
          try {
@@ -135,85 +287,225 @@ public class AbstractXORPropagator extends Propagator<BoolVar> implements IMonit
 
    }
 
-   @Override
-   public void propagate(int idxVarInProp, int mask) throws ContradictionException {
-      List<Propagation> propagations = synchronize(idxVarInProp);
-      for (Propagation propagation : propagations) {
-         // Will propagate to inferences through Choco
-         propagation.propagate(vars, this);
-      }
-   }
-
-   private List<Propagation> synchronize(int idxVarInProp) throws ContradictionException {
-      Affectation externalAffectation = new Affectation(idxVarInProp, isTrue(vars[idxVarInProp]));
-      if (!matrix.isUndefined(idxVarInProp)) {
-         if (isIncoherent(idxVarInProp)) {
-            failBecauseOf(idxVarInProp, externalAffectation);
-         } else {
-            return Collections.emptyList();
+   /* Apply the assignments of the queued variables to the matrix, return the inferences to send to Choco */
+   private List<Propagation> synchronize() throws ContradictionException {
+      int size = 0;
+      for (int variable = assignedVariables.poll(); variable != IntQueue.EMPTY; variable = assignedVariables.poll()) {
+         if (matrix.isUndefined(variable)) {
+            assignedColumns[size] = variable;
+            assignedValues[size] = isTrue(vars[variable]);
+            size += 1;
+         } else if (isIncoherent(variable)) {
+            statistics.onIncoherenceFailure();
+            failBecauseOf(variable, new Affectation(variable, isTrue(vars[variable])));
          }
       }
+      if (size == 0) {
+         return Collections.emptyList();
+      }
+      int firstVariable = assignedColumns[0];
+      Affectation externalAffectation = new Affectation(firstVariable, assignedValues[0]);
 
-      UpdaterList step = commands.peek();
+      int mark = trail.size();
       List<Propagation> propagations = new ArrayList<>();
-      IUpdater updater = onPropagate(idxVarInProp, isTrue(vars[idxVarInProp]));
+      // The unit equations left by the previous synchronizations can still infer a variable
+      matrix.queueUnitEquations();
+      IUpdater updater = rulesApplier.buildAssignations(assignedColumns, assignedValues, size);
       UpdaterState state = updater.update(matrix, propagations);
 
       switch (state) {
          case DONE:
-            step.addCommitted(updater);
             break;
          case EARLY_FAIL:
-            failBecauseOf(idxVarInProp, externalAffectation);
+            statistics.onRemovalFailure();
+            explainFailure(size);
+            failBecauseOf(firstVariable, externalAffectation);
          case LATE_FAIL:
-            updater.restore(matrix);
-            failBecauseOf(idxVarInProp, externalAffectation);
+            statistics.onInvalidEquationFailure();
+            explainFailure(size);
+            trail.undo(matrix, mark);
+            failBecauseOf(firstVariable, externalAffectation);
+      }
+      for (int i = 0; i < size; i++) {
+         if (!inferFromEquivalences(assignedColumns[i], assignedValues[i], propagations)) {
+            statistics.onIncoherenceFailure();
+            failBecauseOf(assignedColumns[i], externalAffectation);
+         }
       }
 
+      if (propagations.isEmpty()) {
+         // Else the unit equations are read after the first inference
+         inferFromUnitEquations(propagations);
+      }
       for (int i = 0; i < propagations.size(); i++) {
          int variable = propagations.get(i).variable;
          boolean value = propagations.get(i).value;
 
          if (matrix.isUndefined(variable)) {
+            nbPruned += 1;
             updater = onPropagate(variable, value);
             if (updater.update(matrix, propagations) != DONE) {
                throw new RuntimeException("Incoherent inference for " + updater.toString());
             }
-            step.addCommitted(updater);
-         } else { // the variable is already instantiated by Choco
-            if (isIncoherent(variable)) {
+            if (!inferFromEquivalences(variable, value, propagations)) {
+               statistics.onIncoherenceFailure();
                failBecauseOf(variable, externalAffectation);
             }
-         }
-
-         for (int equation : matrix.activeEquations()) {
-            if (matrix.nbUnknowns(equation) == 1) {
-               propagations.addAll(new FullInferenceEngine().infer(matrix, equation));
+         } else { // the variable is already instantiated by Choco (or by a previous inference)
+            if (isIncoherent(variable) || matrix.isTrue(variable) != value) {
+               statistics.onIncoherenceFailure();
+               failBecauseOf(variable, externalAffectation);
             }
          }
 
+         inferFromUnitEquations(propagations);
       }
 
       assert checkState(matrix);
+      recordEquivalences();
       return propagations;
    }
 
+   /*
+    * Merge the classes of the two unknown variables of the equations that have no true variable
+    * Such an equation is valid iff its two variables are equal, it stays so in the current branch (the other variables
+    * of the equation remain false) even if the equation is later combined with another one. Only the equations
+    * modified since the last call are read (see IDancingLinksMatrix#pollBinaryEquation).
+    */
+   private void recordEquivalences() {
+      for (int equation = matrix.pollBinaryEquation(); equation != -1; equation = matrix.pollBinaryEquation()) {
+         recordEquivalence(equation);
+      }
+   }
+
+   /* Merge the classes of the two unknown variables of an equation that has no true variable */
+   private void recordEquivalence(int equation) {
+      int first = matrix.firstUnknown(equation);
+      matrix.forEachVariableOf(equation, variable -> {
+         if (variable != first && matrix.isUndefined(variable)) {
+            equivalences.union(first, variable);
+         }
+      });
+   }
+
+   /*
+    * Infer the value of the variables of the class of a variable that has just been assigned
+    * Return false if a variable of the class is already assigned to the other value
+    */
+   private boolean inferFromEquivalences(int variable, boolean value, List<Propagation> propagations) {
+      boolean[] coherent = {true};
+      equivalences.forEachInSetOf(variable, equivalent -> {
+         if (matrix.isUndefined(equivalent)) {
+            statistics.onEquivalenceInference();
+            propagations.add(new Propagation(equivalent, value));
+         } else if (matrix.isTrue(equivalent) != value) {
+            coherent[0] = false;
+         }
+      });
+      return coherent[0];
+   }
+
+   /*
+    * Infer the unknown variable of the queued unit equations (false if the equation has no true, true if it has one)
+    * The equations are handled in increasing order so that the inferences don't depend on the order of the queue
+    */
+   private void inferFromUnitEquations(List<Propagation> propagations) {
+      int size = 0;
+      for (int equation = matrix.pollUnitEquation(); equation != -1; equation = matrix.pollUnitEquation()) {
+         unitEquations[size++] = equation;
+      }
+      Arrays.sort(unitEquations, 0, size);
+      for (int i = 0; i < size; i++) {
+         int equation = unitEquations[i];
+         int nbTrues = matrix.nbTrues(equation);
+         if (nbTrues <= 1) {
+            statistics.onUnitEquationInference();
+            propagations.add(new Propagation(matrix.firstUnknown(equation), nbTrues == 1));
+         }
+      }
+   }
+
    @Override
    public ESat isEntailed() {
-      IntSet unassignedVars = matrix.unassignedVars();
-
-      boolean failsOnSynchronize = false;
-      for (int variable : unassignedVars) {
-         try {
-            synchronize(variable);
-         } catch (ContradictionException unused) {
-            failsOnSynchronize = true;
-            break;
+      // The equations are evaluated on the values of the variables, the matrix and the trail are not modified
+      boolean entailed = true;
+      for (int[] equation : equations) {
+         int nbTrues = 0;
+         int nbUnknowns = 0;
+         for (int variable : equation) {
+            if (!vars[variable].isInstantiated()) {
+               nbUnknowns += 1;
+            } else if (vars[variable].getValue() == 1) {
+               nbTrues += 1;
+            }
+         }
+         if (nbUnknowns == 0 && nbTrues == 1) {
+            return ESat.FALSE;
          }
+         // An equation with two trues is satisfied whatever the values of its unknown variables
+         if (nbUnknowns != 0 && nbTrues < 2) {
+            entailed = false;
+         }
+      }
+      return entailed ? ESat.TRUE : ESat.UNDEFINED;
+   }
+
+   /* Track the xors from the root node, the root equations are the origins of the equations */
+   private void trackOrigins() {
+      rootEquations = new int[matrix.nbEquations()][];
+      for (int equation = 0; equation < rootEquations.length; equation++) {
+         IntArrayList variables = new IntArrayList();
+         matrix.forEachVariableOf(equation, variables::add);
+         rootEquations[equation] = variables.toIntArray();
       }
+      origins = new Origins(matrix.nbEquations());
+      matrix.setOrigins(origins);
+   }
 
-      if (failsOnSynchronize) return ESat.FALSE;
-      return ESat.TRUE;
+   /*
+    * Learn the clause that forbids the assignment of the variables of the invalid equation of a failed batch (if one)
+    * The invalid equation is given by the rules applier, else it is looked for in the equations of the variables of
+    * the batch. Only its origins are visited to build the clause.
+    */
+   private void explainFailure(int size) {
+      if (explanations == null) {
+         return;
+      }
+      int invalid = rulesApplier.invalidEquation();
+      for (int i = 0; invalid == -1 && i < size; i++) {
+         invalid = matrix.findEquationOf(assignedColumns[i], matrix::isInvalid);
+      }
+      if (invalid == -1) {
+         return;
+      }
+      // The variables of the sum of the origins are the ones that appear an odd number of times
+      origins.forEachOriginOf(invalid, origin -> {
+         for (int variable : rootEquations[origin]) {
+            if (!inSum[variable]) {
+               sumVariables.add(variable);
+            }
+            inSum[variable] = !inSum[variable];
+         }
+      });
+      Arrays.sort(sumVariables.elements(), 0, sumVariables.size());
+      IntArrayList literals = new IntArrayList(sumVariables.size());
+      boolean explained = true;
+      for (int i = 0; i < sumVariables.size(); i++) {
+         int variable = sumVariables.getInt(i);
+         if (inSum[variable]) {
+            inSum[variable] = false;
+            if (matrix.isUndefined(variable)) {
+               explained = false;
+            } else if (explained) {
+               // The literal is satisfied iff the variable takes the other value
+               literals.add(explanations.makeLiteral(vars[variable], matrix.isFalse(variable)));
+            }
+         }
+      }
+      sumVariables.clear();
+      if (explained) {
+         explanations.addLearnt(literals.toIntArray());
+      }
    }
 
    private boolean isIncoherent(int variable) {
@@ -225,11 +517,7 @@ public class AbstractXORPropagator extends Propagator<BoolVar> implements IMonit
    }
 
    private IUpdater onPropagate(int variable, boolean value) {
-      if (value) {
-         return rulesApplier.buildTrueAssignation(variable);
-      } else {
-         return rulesApplier.buildFalseAssignation(variable);
-      }
+      return rulesApplier.buildAssignation(variable, value);
    }
 
    private boolean isTrue(BoolVar variable) {
@@ -243,7 +531,7 @@ public class AbstractXORPropagator extends Propagator<BoolVar> implements IMonit
    private boolean checkState(IDancingLinksMatrix m) {
       return atLeastTwoVarsPerLine(m)
             && twoVarsAndOneAtTrueImpliesOtherAtTrue(m)
-            && basesEqualities(m)
+            && (!rulesApplier.infersBaseEqualities() || basesEqualities(m))
             && isNormalForm(m);
    }
 
@@ -281,12 +569,8 @@ public class AbstractXORPropagator extends Propagator<BoolVar> implements IMonit
       for (int equation : m.activeEquations()) {
          int baseVar = m.baseVariableOf(equation);
          if (baseVar != -1 && m.isTrue(baseVar)) {
-            for (int equationJ : m.activeEquations()) {
-               if (equation != equationJ && m.sameOffBaseVariables(equation, equationJ)) {
-                  if (!m.isTrue(m.baseVariableOf(equationJ))) {
-                     return false;
-                  }
-               }
+            if (m.findSameOffBase(equation, equationJ -> !m.isTrue(m.baseVariableOf(equationJ))) != -1) {
+               return false;
             }
          }
       }
@@ -311,11 +595,15 @@ public class AbstractXORPropagator extends Propagator<BoolVar> implements IMonit
 
    @Override
    public void beforeDownBranch(boolean left) {
-      commands.add(new UpdaterList());
+      marks.push(trail.size());
+      equivalenceMarks.push(equivalences.size());
+      rulesApplier.setDepth(marks.size() - 1);
    }
 
    @Override
    public void beforeUpBranch() {
-      commands.pop().restore(matrix);
+      trail.undo(matrix, marks.popInt());
+      equivalences.undo(equivalenceMarks.popInt());
+      rulesApplier.setDepth(marks.size() - 1);
    }
 }
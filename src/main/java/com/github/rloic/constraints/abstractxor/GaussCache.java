@@ -0,0 +1,116 @@
+package com.github.rloic.constraints.abstractxor;
+
+import com.github.rloic.common.utils.Logger;
+import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
+import com.github.rloic.dancinglinks.IDancingLinksMatrix;
+import com.github.rloic.dancinglinks.MatrixState;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A disk cache of the Gauss elimination of the xor systems
+ * The echelon form of a system (rows, bases and pivots) is stored in a file named after the SHA-256 of the system
+ * (its equations in order and its number of variables). The next models built on the same system load the file
+ * with memory-mapped I/O instead of running the elimination.
+ * The cache is enabled by setting the system property {@value #DIRECTORY_PROPERTY} to a directory.
+ */
+public final class GaussCache {
+
+   public static final String DIRECTORY_PROPERTY = "abstractxor.gauss.cache";
+
+   /* Changes with the encoding of the states or with the elimination (it invalidates the previous files) */
+   private static final String VERSION = "gauss-v1";
+   private static final String EXTENSION = ".state";
+
+   private final Path directory;
+
+   public GaussCache(Path directory) {
+      this.directory = directory;
+   }
+
+   /**
+    * Return the cache configured by the system property {@value #DIRECTORY_PROPERTY}
+    * @return The cache if the property is set else null
+    */
+   public static GaussCache fromSystemProperties() {
+      String directory = System.getProperty(DIRECTORY_PROPERTY);
+      if (directory == null || directory.isEmpty()) {
+         return null;
+      }
+      return new GaussCache(Paths.get(directory));
+   }
+
+   /**
+    * Put the matrix in echelon form, the form is loaded from the cache if the system has already been eliminated
+    * else the elimination is run and its result is stored
+    * The matrix must be in its initial state (no assignment, no base)
+    * @param matrix The matrix
+    */
+   public void gauss(IDancingLinksMatrix matrix) {
+      Path file = directory.resolve(keyOf(matrix.snapshot()) + EXTENSION);
+      if (Files.isRegularFile(file)) {
+         try {
+            matrix.restoreFrom(load(file));
+            return;
+         } catch (IOException | RuntimeException e) {
+            Logger.warn("Cannot load the Gauss elimination from " + file + ": " + e);
+         }
+      }
+      RulesApplier.gauss(matrix);
+      try {
+         store(file, matrix.snapshot());
+      } catch (IOException e) {
+         Logger.warn("Cannot store the Gauss elimination into " + file + ": " + e);
+      }
+   }
+
+   /**
+    * Return the key of a system: the hexadecimal SHA-256 of its encoded initial state
+    * @param initialState The initial state of the matrix of the system
+    * @return The key of the system
+    */
+   static String keyOf(MatrixState initialState) {
+      try {
+         MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         digest.update(VERSION.getBytes(StandardCharsets.US_ASCII));
+         byte[] hash = digest.digest(initialState.encode());
+         StringBuilder key = new StringBuilder(2 * hash.length);
+         for (byte b : hash) {
+            key.append(Character.forDigit((b >>> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+         }
+         return key.toString();
+      } catch (NoSuchAlgorithmException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private static MatrixState load(Path file) throws IOException {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+         ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         return MatrixState.decode(buffer);
+      }
+   }
+
+   /* The state is written in a temporary file then moved so that a concurrent run never reads a partial file */
+   private void store(Path file, MatrixState state) throws IOException {
+      Files.createDirectories(directory);
+      Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+      try {
+         Files.write(temporary, state.encode());
+         try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+         } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+         }
+      } finally {
+         Files.deleteIfExists(temporary);
+      }
+   }
+
+}
@@ -0,0 +1,151 @@
+package com.github.rloic.constraints.abstractxor;
+
+import com.github.rloic.dancinglinks.IDancingLinksMatrix;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.BoolVar;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.util.ESat;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A propagator that bounds the number of active S-boxes with the equations of the abstract xor matrices
+ * An equation of a matrix with exactly one true variable needs another true variable (an abstract xor is never
+ * equal to one true). When all its unknown variables are S-boxes, one more S-box must be active. The equations that
+ * have no unknown S-box in common need distinct S-boxes, so the number of such equations (chosen greedily) added to
+ * the number of active S-boxes is a lower bound of the budget.
+ * The equations are read from the current matrices and evaluated on the domains of the variables, so the bound is
+ * valid even if the xor propagators have not yet synchronized their matrices.
+ * Every matrix is scanned on each event, and the bound rarely prunes on the AES and Midori instances, so the models
+ * only post the propagator when the system property {@value #BUDGET_PROPERTY} is set to true.
+ */
+public class SBoxBudgetPropagator extends Propagator<IntVar> {
+
+   public static final String BUDGET_PROPERTY = "abstractxor.sbox.budget";
+
+   private final BoolVar[] sBoxes;
+   private final IntVar budget;
+   private final List<AbstractXORPropagator> xorPropagators;
+
+   /* The S-box flag of the columns of each xor propagator */
+   private final boolean[][] isSBox;
+
+   /* The S-boxes of each xor propagator already needed by a chosen equation */
+   private final boolean[][] isNeeded;
+
+   /* The state of the scan of the matrices */
+   private int nbNeeded;
+   private AbstractXORPropagator xorPropagator;
+   private boolean[] isSBoxColumn;
+   private boolean[] isNeededColumn;
+   private int nbTrues;
+   private int nbUnknowns;
+   private boolean onlySBoxes;
+
+   /**
+    * @param xorPropagators The abstract xor propagators of the model
+    * @param sBoxes The S-boxes of the model
+    * @param budget The number of active S-boxes
+    */
+   public SBoxBudgetPropagator(List<AbstractXORPropagator> xorPropagators, BoolVar[] sBoxes, IntVar budget) {
+      super(variables(xorPropagators, sBoxes, budget), PropagatorPriority.VERY_SLOW, false);
+      this.sBoxes = sBoxes;
+      this.budget = budget;
+      this.xorPropagators = xorPropagators;
+      Set<BoolVar> sBoxSet = new HashSet<>(Arrays.asList(sBoxes));
+      isSBox = new boolean[xorPropagators.size()][];
+      isNeeded = new boolean[xorPropagators.size()][];
+      for (int p = 0; p < xorPropagators.size(); p++) {
+         AbstractXORPropagator xorPropagator = xorPropagators.get(p);
+         isSBox[p] = new boolean[xorPropagator.getNbVars()];
+         isNeeded[p] = new boolean[xorPropagator.getNbVars()];
+         for (int column = 0; column < xorPropagator.getNbVars(); column++) {
+            isSBox[p][column] = sBoxSet.contains(xorPropagator.getVar(column));
+         }
+      }
+   }
+
+   /**
+    * Indicates if the models post the propagator (see {@value #BUDGET_PROPERTY})
+    * @return true if the system property is set to true
+    */
+   public static boolean isEnabled() {
+      return Boolean.getBoolean(BUDGET_PROPERTY);
+   }
+
+   /* The variables of the xors (the propagator reacts on any of them), the S-boxes and the budget */
+   private static IntVar[] variables(List<AbstractXORPropagator> xorPropagators, BoolVar[] sBoxes, IntVar budget) {
+      Set<IntVar> variables = new LinkedHashSet<>(Arrays.asList(sBoxes));
+      for (AbstractXORPropagator xorPropagator : xorPropagators) {
+         variables.addAll(Arrays.asList(xorPropagator.getVars()));
+      }
+      variables.add(budget);
+      return variables.toArray(new IntVar[0]);
+   }
+
+   @Override
+   public void propagate(int evtmask) throws ContradictionException {
+      int nbActives = 0;
+      for (BoolVar sBox : sBoxes) {
+         if (sBox.isInstantiatedTo(1)) {
+            nbActives += 1;
+         }
+      }
+      budget.updateLowerBound(nbActives + nbNeededSBoxes(), this);
+   }
+
+   /* The number of disjoint equations that need one more active S-box */
+   private int nbNeededSBoxes() {
+      nbNeeded = 0;
+      for (int p = 0; p < xorPropagators.size(); p++) {
+         xorPropagator = xorPropagators.get(p);
+         isSBoxColumn = isSBox[p];
+         isNeededColumn = isNeeded[p];
+         Arrays.fill(isNeededColumn, false);
+         xorPropagator.matrix.forEachActiveEquation(this::scan);
+      }
+      return nbNeeded;
+   }
+
+   private void scan(int equation) {
+      IDancingLinksMatrix matrix = xorPropagator.matrix;
+      nbTrues = 0;
+      nbUnknowns = 0;
+      onlySBoxes = true;
+      matrix.forEachVariableOf(equation, column -> {
+         BoolVar var = xorPropagator.getVar(column);
+         if (!var.isInstantiated()) {
+            nbUnknowns += 1;
+            onlySBoxes &= isSBoxColumn[column] && !isNeededColumn[column];
+         } else if (var.getValue() == 1) {
+            nbTrues += 1;
+         }
+      });
+      if (nbTrues == 1 && nbUnknowns != 0 && onlySBoxes) {
+         nbNeeded += 1;
+         matrix.forEachVariableOf(equation, column -> isNeededColumn[column] = true);
+      }
+   }
+
+   @Override
+   public ESat isEntailed() {
+      if (!budget.isInstantiated()) {
+         return ESat.UNDEFINED;
+      }
+      int nbActives = 0;
+      for (BoolVar sBox : sBoxes) {
+         if (!sBox.isInstantiated()) {
+            return ESat.UNDEFINED;
+         }
+         nbActives += sBox.getValue();
+      }
+      return nbActives <= budget.getValue() ? ESat.TRUE : ESat.FALSE;
+   }
+
+}
@@ -0,0 +1,125 @@
+package com.github.rloic.constraints.abstractxor;
+
+import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
+import com.github.rloic.dancinglinks.IDancingLinksMatrix;
+import com.github.rloic.dancinglinks.MatrixFactory;
+import com.github.rloic.dancinglinks.MatrixState;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The immutable part of an abstract xor system, shared by all the propagators (and so all the solvers) built on the
+ * same equations
+ * A system holds the initial rows (in increasing order of the variables) and, once the first propagator has run
+ * the Gauss elimination, the reduced basis of the system. Each propagator keeps its own matrix (values, active
+ * rows and columns, fill-in of the search) that is loaded from the reduced basis instead of being eliminated again.
+ * The systems are interned: {@link #of(int[][], int)} returns the same instance for equal systems.
+ */
+public final class XorSystem {
+
+   /* The interned systems, a system is released when no propagator uses it anymore */
+   private static final Map<XorSystem, WeakReference<XorSystem>> INSTANCES = new WeakHashMap<>();
+
+   private final int[][] rows;
+   private final int nbVariables;
+   private final int hash;
+
+   /* The reduced basis (null until the first elimination) */
+   private volatile MatrixState reduced;
+
+   private XorSystem(int[][] rows, int nbVariables) {
+      this.rows = rows;
+      this.nbVariables = nbVariables;
+      this.hash = 31 * nbVariables + Arrays.deepHashCode(rows);
+   }
+
+   /**
+    * Return the shared system of the given equations
+    * @param equations The equations (each equation is the list of its variables), they are not modified
+    * @param nbVariables The number of variables
+    * @return The system
+    */
+   public static XorSystem of(int[][] equations, int nbVariables) {
+      int[][] rows = new int[equations.length][];
+      for (int i = 0; i < equations.length; i++) {
+         rows[i] = equations[i].clone();
+         Arrays.sort(rows[i]);
+      }
+      XorSystem system = new XorSystem(rows, nbVariables);
+      synchronized (INSTANCES) {
+         WeakReference<XorSystem> reference = INSTANCES.get(system);
+         XorSystem shared = reference != null ? reference.get() : null;
+         if (shared != null) {
+            return shared;
+         }
+         INSTANCES.put(system, new WeakReference<>(system));
+         return system;
+      }
+   }
+
+   public int nbEquations() {
+      return rows.length;
+   }
+
+   public int nbVariables() {
+      return nbVariables;
+   }
+
+   /**
+    * Create a new matrix in the initial state of the system
+    * @param factory The factory of the matrix
+    * @return The matrix
+    */
+   public IDancingLinksMatrix newMatrix(MatrixFactory factory) {
+      int[][] equations = new int[rows.length][];
+      for (int i = 0; i < rows.length; i++) {
+         equations[i] = rows[i].clone();
+      }
+      return factory.create(equations, nbVariables);
+   }
+
+   /**
+    * Put a matrix of the system in echelon form
+    * The first call runs the elimination (or loads it from the cache) and keeps the reduced basis, the next calls
+    * only load the reduced basis into the matrix
+    * @param matrix A matrix in the initial state of the system
+    * @param cache The disk cache of the eliminations (null if disabled)
+    */
+   public void gauss(IDancingLinksMatrix matrix, GaussCache cache) {
+      MatrixState basis = reduced;
+      if (basis == null) {
+         synchronized (this) {
+            basis = reduced;
+            if (basis == null) {
+               if (cache != null) {
+                  cache.gauss(matrix);
+               } else {
+                  RulesApplier.gauss(matrix);
+               }
+               reduced = matrix.snapshot();
+               return;
+            }
+         }
+      }
+      matrix.restoreFrom(basis);
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      XorSystem that = (XorSystem) o;
+      return hash == that.hash
+            && nbVariables == that.nbVariables
+            && Arrays.deepEquals(rows, that.rows);
+   }
+
+   @Override
+   public int hashCode() {
+      return hash;
+   }
+
+}
@@ -1,6 +1,7 @@
 package com.github.rloic.constraints.abstractxor.rulesapplier;
 
 import com.github.rloic.dancinglinks.IDancingLinksMatrix;
+import com.github.rloic.dancinglinks.XorStatistics;
 import com.github.rloic.dancinglinks.actions.IUpdater;
 import it.unimi.dsi.fastutil.ints.IntArraySet;
 import it.unimi.dsi.fastutil.ints.IntSet;
@@ -13,6 +14,68 @@ public interface RulesApplier {
 
    IUpdater buildFalseAssignation(int variable);
 
+   default IUpdater buildAssignation(int variable, boolean value) {
+      return value ? buildTrueAssignation(variable) : buildFalseAssignation(variable);
+   }
+
+   /**
+    * Build the assignation of several variables at once (the variables are undefined in the matrix)
+    * By default the assignations are run one after the other, each one is built once the previous one is done.
+    * @param variables The variables
+    * @param values The values of the variables
+    * @param size The number of assigned variables (the first ones of the arrays)
+    * @return The updater of the assignations
+    */
+   default IUpdater buildAssignations(int[] variables, boolean[] values, int size) {
+      IUpdater updater = buildAssignation(variables[0], values[0]);
+      for (int i = 1; i < size; i++) {
+         final int variable = variables[i];
+         final boolean value = values[i];
+         updater = updater.then(() -> buildAssignation(variable, value));
+      }
+      return updater;
+   }
+
+   /**
+    * Return the invalid equation on which the last assignation failed (LATE_FAIL)
+    * The equation is only known until the matrix is restored or the next assignation is run.
+    * @return The invalid equation if the rules applier knows it, else -1
+    */
+   default int invalidEquation() {
+      return -1;
+   }
+
+   /**
+    * Count the inferences of the rules in the statistics
+    * The statistics are shared by all the matrices the rules applier is used on
+    * @param statistics The statistics (null to stop counting)
+    */
+   default void setStatistics(XorStatistics statistics) {}
+
+   /**
+    * Tell the depth of the search (its number of decisions) to the rules applier, before the next assignations
+    * @param depth The depth
+    */
+   default void setDepth(int depth) {}
+
+   /**
+    * Tell the outcome of a synchronization of the propagator to the rules applier: the assignations of the variables
+    * instantiated by the solver and of the inferences that followed
+    * @param nanos The time of the synchronization
+    * @param nbPruned The number of variables fixed by the inferences, or the number of undefined variables if the
+    *                 synchronization failed (a failure prunes the whole branch)
+    */
+   default void onSynchronization(long nanos, int nbPruned) {}
+
+   /**
+    * Return true if the rules always infer the equality of the bases of the equations that are equal but for their base
+    * (the assertions of the propagator check it)
+    * @return false if the rules may skip some base equalities
+    */
+   default boolean infersBaseEqualities() {
+      return true;
+   }
+
    static void gauss(IDancingLinksMatrix m) {
       boolean[] isPivot = new boolean[m.nbEquations()];
       boolean[] hadAOne = new boolean[m.nbEquations()];
@@ -20,18 +83,18 @@ public interface RulesApplier {
 
       for (int variable = 0; variable < m.nbVariables(); variable++) {
          conflicts.clear();
-         for (int equation : m.equationsOf(variable)) {
-            if (!isPivot[equation] && !hadAOne[equation] && !m.isBase(variable)) {
-               m.setBase(equation, variable);
+         final int _variable = variable;
+         m.forEachEquationOf(variable, equation -> {
+            if (!isPivot[equation] && !hadAOne[equation] && !m.isBase(_variable)) {
+               m.setBase(equation, _variable);
                isPivot[equation] = true;
             } else {
                conflicts.add(equation);
             }
-         }
+         });
 
          if (m.isBase(variable)) {
             int pivot = m.pivotOf(variable);
-            final int _variable = variable;
             conflicts.forEach((IntConsumer) target -> {
                m.xor(target, pivot);
                if (!isPivot[target]) {
@@ -0,0 +1,161 @@
+package com.github.rloic.constraints.abstractxor.rulesapplier.impl;
+
+import com.github.rloic.constraints.abstractxor.inferenceengine.InferenceEngine;
+import com.github.rloic.constraints.abstractxor.inferenceengine.impl.FullInferenceEngine;
+import com.github.rloic.constraints.abstractxor.inferenceengine.impl.PartialInferenceEngine;
+import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
+import com.github.rloic.dancinglinks.actions.IUpdater;
+
+/**
+ * The rules of the CompiledRulesApplier with a consistency level chosen at each synchronization from the depth of the
+ * search
+ * The full level (FullInferenceEngine and base equality rules) and the partial level (PartialInferenceEngine without
+ * the base equality rules) modify the matrix in the same way, only their inferences differ, so the level can change
+ * between two synchronizations. Both levels are measured by depth on the synchronizations that use them (see
+ * RulesApplier#onSynchronization): their time and the number of variables they actually fix, a failure counting as
+ * the pruning of every undefined variable. Every period synchronizations, the full level is kept down to the first
+ * depth where it prunes less per unit of time than the partial level (full at shallow depths and partial deeper).
+ * The partial level is used everywhere until the first choice.
+ * One synchronization out of EXPLORATION measures the full level at the depths of the partial level, and the partial
+ * level only at the last depth of the full level: an inference missed by the partial level is missed in the whole
+ * subtree of the synchronization, so the partial level is not tried at the shallower depths.
+ * The levels are reported in the statistics.
+ */
+public class AdaptiveRulesApplier extends CompiledRulesApplier implements RulesApplier {
+
+   /* The depths are measured up to MAX_DEPTH, the deeper depths are measured with the last one */
+   private static final int MAX_DEPTH = 256;
+   private static final int DEFAULT_PERIOD = 1 << 12;
+   static final int EXPLORATION = 32;
+
+   private static final int FULL = 0;
+   private static final int PARTIAL = 1;
+
+   private final InferenceEngine fullEngine = new FullInferenceEngine();
+   private final InferenceEngine partialEngine = new PartialInferenceEngine();
+
+   /* The number of synchronizations between two updates of fullDepth */
+   private final int period;
+
+   /* The time and the pruned variables of the synchronizations, by level and by depth */
+   private final long[][] nanos = new long[2][MAX_DEPTH];
+   private final long[][] nbPruned = new long[2][MAX_DEPTH];
+
+   /* The full level is used at the depths lower than fullDepth */
+   private int fullDepth = 0;
+   private int depth;
+   private long nbSynchronizations;
+
+   /* The level of the current synchronization (-1 if it has not been chosen yet) */
+   private int level = -1;
+
+   public AdaptiveRulesApplier() {
+      this(DEFAULT_PERIOD);
+   }
+
+   /**
+    * @param period The number of synchronizations between two choices of the depth of the full level
+    */
+   public AdaptiveRulesApplier(int period) {
+      super(new FullInferenceEngine(), true);
+      if (period <= 0) {
+         throw new IllegalArgumentException("The period must be positive");
+      }
+      this.period = period;
+   }
+
+   @Override
+   public void setDepth(int depth) {
+      this.depth = Math.min(depth, MAX_DEPTH - 1);
+   }
+
+   @Override
+   public IUpdater buildTrueAssignation(int variable) {
+      selectLevel();
+      return super.buildTrueAssignation(variable);
+   }
+
+   @Override
+   public IUpdater buildFalseAssignation(int variable) {
+      selectLevel();
+      return super.buildFalseAssignation(variable);
+   }
+
+   @Override
+   public IUpdater buildAssignations(int[] variables, boolean[] values, int size) {
+      selectLevel();
+      return super.buildAssignations(variables, values, size);
+   }
+
+   @Override
+   public void onSynchronization(long nanos, int nbPruned) {
+      if (level != -1) {
+         this.nanos[level][depth] += nanos;
+         this.nbPruned[level][depth] += nbPruned;
+         level = -1;
+      }
+   }
+
+   /* The base equalities skipped by a partial synchronization are not inferred by the next full ones */
+   @Override
+   public boolean infersBaseEqualities() {
+      return false;
+   }
+
+   /**
+    * Return the depth down to which the full level is used (the deepest depth if it is used at every depth)
+    * @return The depth of the first synchronizations with the partial level
+    */
+   public int getFullDepth() {
+      return fullDepth;
+   }
+
+   /* The level is chosen by the first assignation of a synchronization and kept by its inferences */
+   private void selectLevel() {
+      if (level != -1) {
+         return;
+      }
+      nbSynchronizations += 1;
+      if (nbSynchronizations % period == 0) {
+         updateFullDepth();
+      }
+      boolean full;
+      if (nbSynchronizations % EXPLORATION == 0) {
+         full = depth != fullDepth - 1;
+      } else {
+         full = depth < fullDepth;
+      }
+      if (full) {
+         level = FULL;
+         setLevel(fullEngine, true);
+      } else {
+         level = PARTIAL;
+         setLevel(partialEngine, false);
+      }
+      if (statistics != null) {
+         statistics.onSynchronizationLevel(full);
+      }
+   }
+
+   /*
+    * The full level is kept down to the first depth where it has not been measured yet or where it prunes less per unit
+    * of time than the partial level
+    */
+   private void updateFullDepth() {
+      fullDepth = 0;
+      while (fullDepth < MAX_DEPTH && nanos[FULL][fullDepth] != 0) {
+         if (nanos[PARTIAL][fullDepth] != 0 && rate(FULL, fullDepth) < rate(PARTIAL, fullDepth)) {
+            break;
+         }
+         fullDepth += 1;
+      }
+      if (statistics != null) {
+         statistics.onFullDepth(fullDepth);
+      }
+   }
+
+   private double rate(int level, int depth) {
+      return (double) nbPruned[level][depth] / nanos[level][depth];
+   }
+
+}
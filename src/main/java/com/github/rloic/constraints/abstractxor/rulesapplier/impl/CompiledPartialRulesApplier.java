@@ -0,0 +1,15 @@
+package com.github.rloic.constraints.abstractxor.rulesapplier.impl;
+
+import com.github.rloic.constraints.abstractxor.inferenceengine.impl.PartialInferenceEngine;
+import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
+
+/**
+ * The rules of the PartialRulesApplier run by the interpreter of the CompiledRulesApplier
+ */
+public class CompiledPartialRulesApplier extends CompiledRulesApplier implements RulesApplier {
+
+   public CompiledPartialRulesApplier() {
+      super(new PartialInferenceEngine(), false);
+   }
+
+}
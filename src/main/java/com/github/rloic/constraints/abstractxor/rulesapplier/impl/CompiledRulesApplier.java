@@ -0,0 +1,575 @@
+package com.github.rloic.constraints.abstractxor.rulesapplier.impl;
+
+import com.github.rloic.constraints.abstractxor.inferenceengine.InferenceEngine;
+import com.github.rloic.constraints.abstractxor.inferenceengine.impl.FullInferenceEngine;
+import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
+import com.github.rloic.dancinglinks.IDancingLinksMatrix;
+import com.github.rloic.dancinglinks.XorStatistics;
+import com.github.rloic.dancinglinks.actions.IUpdater;
+import com.github.rloic.dancinglinks.actions.Propagation;
+import com.github.rloic.dancinglinks.actions.UpdaterState;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * The rules of the FullRulesApplier run by an interpreter instead of a tree of updaters
+ * An assignation is a program of opcodes (preceded by their operands) in a reusable int array used as a stack. The
+ * operations that depend on the state of the matrix (such as the choice of a new base) are expanded when they are
+ * reached, by pushing their own operations in the reverse order. The operations are run in the order of the updaters
+ * of the FullRulesApplier, so they make the same inferences, and the program stops on the first failure with
+ * LATE_FAIL (as the updaters). The modifications of the matrix are logged so that restore undoes them.
+ * The updater returned by an assignation is reused by the next one: it must be run before the next one is built.
+ * The assignations of a batch of variables fix all the variables first, then choose the new bases of the false ones
+ * (so that a variable of the batch is never chosen to be replaced in its turn) and infer once from each modified
+ * equation, in increasing order, before the equalities of the bases.
+ */
+public class CompiledRulesApplier implements RulesApplier {
+
+    /* The opcodes of the programs (FIX_TRUE, FIX_FALSE, SWAP_BASE, XOR, REMOVE_EQUATION and REMOVE_VARIABLE are logged) */
+    private static final int FIX_TRUE = 0;
+    private static final int FIX_FALSE = 1;
+    private static final int RULES_OF_TRUE = 2;
+    private static final int RULES_OF_FALSE = 3;
+    private static final int INFER = 4;
+    private static final int INFER_BASES_EQUALITIES = 5;
+    private static final int INFER_ALL_BASE_EQUALITIES = 6;
+    private static final int SWAP_BASE = 7;
+    private static final int XOR_AND_INFER_ALL = 8;
+    private static final int XOR = 9;
+    private static final int REMOVE_EQUATION = 10;
+    private static final int REMOVE_VARIABLE = 11;
+    private static final int BATCH_RULES_OF_TRUE = 12;
+    private static final int BATCH_RULES_OF_FALSE = 13;
+    private static final int XOR_AND_MARK_ALL = 14;
+    private static final int INFER_MARKED = 15;
+
+    private InferenceEngine engine;
+    private boolean inferBaseEqualities;
+    private final Program program = new Program();
+    /* The counters of the inferences (null if they are not counted) */
+    XorStatistics statistics;
+
+    public CompiledRulesApplier() {
+        this(new FullInferenceEngine(), true);
+    }
+
+    /**
+     * @param engine The inference engine
+     * @param inferBaseEqualities true to infer the bases of the equations that are equal but for their base (as the
+     *                            FullRulesApplier), false to skip this rule (as the PartialRulesApplier)
+     */
+    CompiledRulesApplier(InferenceEngine engine, boolean inferBaseEqualities) {
+        this.engine = engine;
+        this.inferBaseEqualities = inferBaseEqualities;
+    }
+
+    /**
+     * Change the rules of the next assignations
+     * @param engine The inference engine
+     * @param inferBaseEqualities true to infer the bases of the equations that are equal but for their base
+     */
+    void setLevel(InferenceEngine engine, boolean inferBaseEqualities) {
+        this.engine = engine;
+        this.inferBaseEqualities = inferBaseEqualities;
+    }
+
+    @Override
+    public void setStatistics(XorStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public boolean infersBaseEqualities() {
+        return inferBaseEqualities;
+    }
+
+    @Override
+    public IUpdater buildTrueAssignation(int variable) {
+        return program.compile(variable, true);
+    }
+
+    @Override
+    public IUpdater buildFalseAssignation(int variable) {
+        return program.compile(variable, false);
+    }
+
+    @Override
+    public IUpdater buildAssignations(int[] variables, boolean[] values, int size) {
+        if (size == 1) {
+            return program.compile(variables[0], values[0]);
+        }
+        return program.compile(variables, values, size);
+    }
+
+    @Override
+    public int invalidEquation() {
+        return program.invalidEquation;
+    }
+
+    private final class Program implements IUpdater {
+
+        private int[] stack = new int[64];
+        private int top;
+
+        /* The modifications of the matrix done by the last run, as [operands..., opcode] */
+        private int[] log = new int[64];
+        private int logSize;
+
+        private int variable;
+        private boolean value;
+        private int batchSize;
+
+        /* The invalid equation on which the last run failed (-1 if none) */
+        private int invalidEquation = -1;
+
+        /* The true variables of the batch and the equations to infer from at the end of the batch */
+        private final IntArrayList trueVariables = new IntArrayList();
+        private final IntArrayList marked = new IntArrayList();
+        private boolean[] isMarked = new boolean[0];
+
+        /* The state of the current run */
+        private IDancingLinksMatrix matrix;
+        private List<Propagation> inferences;
+        private final IntPredicate isInvalid = equation -> matrix.isInvalid(equation);
+        private final IntArrayList equations = new IntArrayList();
+        private final IntConsumer addEquation = equations::add;
+
+        /* The pivot whose base equalities are inferred */
+        private int equalityPivot;
+        private final IntPredicate isEqualWithTrueBase = this::isEqualWithTrueBase;
+        private final IntConsumer inferIfEqualWithFalseBase = this::inferIfEqualWithFalseBase;
+
+        IUpdater compile(int variable, boolean value) {
+            this.variable = variable;
+            this.value = value;
+            batchSize = 1;
+            top = 0;
+            logSize = 0;
+            if (value) {
+                push(variable, RULES_OF_TRUE);
+                push(variable, FIX_TRUE);
+            } else {
+                push(variable, RULES_OF_FALSE);
+                push(variable, FIX_FALSE);
+            }
+            return this;
+        }
+
+        IUpdater compile(int[] variables, boolean[] values, int size) {
+            variable = variables[0];
+            value = values[0];
+            batchSize = size;
+            top = 0;
+            logSize = 0;
+            trueVariables.clear();
+            for (int i = 0; i < size; i++) {
+                if (values[i]) {
+                    trueVariables.add(variables[i]);
+                }
+            }
+            if (inferBaseEqualities) {
+                for (int i = size - 1; i >= 0; i--) {
+                    push(variables[i], values[i] ? BATCH_RULES_OF_TRUE : INFER_ALL_BASE_EQUALITIES);
+                }
+            }
+            push(0, INFER_MARKED);
+            for (int i = size - 1; i >= 0; i--) {
+                if (!values[i]) {
+                    push(variables[i], BATCH_RULES_OF_FALSE);
+                }
+            }
+            for (int i = size - 1; i >= 0; i--) {
+                push(variables[i], values[i] ? FIX_TRUE : FIX_FALSE);
+            }
+            return this;
+        }
+
+        @Override
+        public UpdaterState update(IDancingLinksMatrix matrix, List<Propagation> inferences) {
+            this.matrix = matrix;
+            this.inferences = inferences;
+            if (isMarked.length < matrix.nbEquations()) {
+                isMarked = new boolean[matrix.nbEquations()];
+            }
+            invalidEquation = -1;
+            try {
+                while (top != 0) {
+                    if (!run(stack[--top])) {
+                        top = 0;
+                        return UpdaterState.LATE_FAIL;
+                    }
+                }
+                return UpdaterState.DONE;
+            } finally {
+                clearMarks();
+                this.matrix = null;
+                this.inferences = null;
+            }
+        }
+
+        /* Run the operation, return false if it fails */
+        private boolean run(int opcode) {
+            switch (opcode) {
+                case FIX_TRUE:
+                case FIX_FALSE: {
+                    int variable = stack[--top];
+                    matrix.set(variable, opcode == FIX_TRUE);
+                    log(variable, opcode);
+                    invalidEquation = matrix.findEquationOf(variable, isInvalid);
+                    return invalidEquation == -1;
+                }
+                case RULES_OF_TRUE:
+                    rulesOfTrue(stack[--top]);
+                    return true;
+                case RULES_OF_FALSE:
+                    rulesOfFalse(stack[--top]);
+                    return true;
+                case INFER: {
+                    List<Propagation> inferred = engine.infer(matrix, stack[--top]);
+                    if (statistics != null) {
+                        statistics.onEquationInferences(inferred.size());
+                    }
+                    inferences.addAll(inferred);
+                    return true;
+                }
+                case INFER_BASES_EQUALITIES: {
+                    int pivot = stack[--top];
+                    int baseVar = matrix.baseVariableOf(pivot);
+                    assert baseVar != -1;
+                    if (matrix.isTrue(baseVar)) {
+                        inferThatOtherBasesAreEqualToThisBase(pivot);
+                    }
+                    return true;
+                }
+                case INFER_ALL_BASE_EQUALITIES:
+                    inferAllBaseEqualities(stack[--top]);
+                    return true;
+                case SWAP_BASE: {
+                    int newBaseVar = stack[--top];
+                    int oldBaseVar = stack[--top];
+                    assert matrix.isBase(oldBaseVar) && !matrix.isBase(newBaseVar);
+                    int pivot = matrix.pivotOf(oldBaseVar);
+                    matrix.setOffBase(oldBaseVar);
+                    matrix.setBase(pivot, newBaseVar);
+                    log(oldBaseVar, newBaseVar, SWAP_BASE);
+                    return true;
+                }
+                case XOR_AND_INFER_ALL: {
+                    int newBaseVar = stack[--top];
+                    int pivot = stack[--top];
+                    collectEquationsOf(newBaseVar);
+                    for (int i = equations.size() - 1; i >= 0; i--) {
+                        int equation = equations.getInt(i);
+                        if (equation != pivot) {
+                            push(equation, INFER);
+                            push(equation, pivot, XOR);
+                        }
+                    }
+                    return true;
+                }
+                case XOR: {
+                    int pivot = stack[--top];
+                    int target = stack[--top];
+                    if (!matrix.isValid(target)) {
+                        invalidEquation = target;
+                        return false;
+                    }
+                    matrix.xor(target, pivot);
+                    log(target, pivot, XOR);
+                    if (!matrix.isValid(target)) {
+                        invalidEquation = target;
+                        return false;
+                    }
+                    return true;
+                }
+                case REMOVE_EQUATION: {
+                    int equation = stack[--top];
+                    if (!matrix.isEmpty(equation) && matrix.nbUnknowns(equation) != 0) {
+                        return false;
+                    }
+                    matrix.removeEquation(equation);
+                    log(equation, REMOVE_EQUATION);
+                    return true;
+                }
+                case REMOVE_VARIABLE: {
+                    int variable = stack[--top];
+                    assert matrix.isUnused(variable);
+                    matrix.removeVariable(variable);
+                    log(variable, REMOVE_VARIABLE);
+                    return true;
+                }
+                case BATCH_RULES_OF_TRUE: {
+                    int variable = stack[--top];
+                    if (matrix.isBase(variable)) {
+                        int pivot = matrix.pivotOf(variable);
+                        push(pivot, INFER_BASES_EQUALITIES);
+                    }
+                    return true;
+                }
+                case BATCH_RULES_OF_FALSE:
+                    batchRulesOfFalse(stack[--top]);
+                    return true;
+                case XOR_AND_MARK_ALL: {
+                    int newBaseVar = stack[--top];
+                    int pivot = stack[--top];
+                    collectEquationsOf(newBaseVar);
+                    for (int i = equations.size() - 1; i >= 0; i--) {
+                        int equation = equations.getInt(i);
+                        if (equation != pivot) {
+                            mark(equation);
+                            push(equation, pivot, XOR);
+                        }
+                    }
+                    return true;
+                }
+                case INFER_MARKED:
+                    top -= 1;
+                    inferMarked();
+                    return true;
+                default:
+                    throw new IllegalStateException("Unknown opcode " + opcode);
+            }
+        }
+
+        /* The rules once the variable is true: infer from its equations, and from the equalities of the bases */
+        private void rulesOfTrue(int variable) {
+            if (matrix.isBase(variable)) {
+                int pivot = matrix.pivotOf(variable);
+                if (inferBaseEqualities) {
+                    push(pivot, INFER_BASES_EQUALITIES);
+                }
+                push(pivot, INFER);
+            } else {
+                pushInferForAllEquationsOf(variable);
+            }
+        }
+
+        /* The rules once the variable is false: infer from its equations, choose a new base and remove the variable */
+        private void rulesOfFalse(int variable) {
+            if (inferBaseEqualities) {
+                push(variable, INFER_ALL_BASE_EQUALITIES);
+            }
+            push(variable, REMOVE_VARIABLE);
+            if (matrix.isBase(variable)) {
+                int pivot = matrix.pivotOf(variable);
+                if (matrix.isEmpty(pivot)) {
+                    push(pivot, REMOVE_EQUATION);
+                } else {
+                    int newBaseVar = matrix.eligibleBase(pivot);
+                    push(pivot, newBaseVar, XOR_AND_INFER_ALL);
+                    push(variable, newBaseVar, SWAP_BASE);
+                }
+                push(pivot, INFER);
+            } else {
+                pushInferForAllEquationsOf(variable);
+            }
+        }
+
+        /*
+         * The rules of a false variable of a batch, once all the variables of the batch are fixed: choose a new base and
+         * remove the variable, the equations of the variable and the xored ones are inferred from at the end of the batch
+         */
+        private void batchRulesOfFalse(int variable) {
+            push(variable, REMOVE_VARIABLE);
+            if (matrix.isBase(variable)) {
+                int pivot = matrix.pivotOf(variable);
+                if (matrix.isEmpty(pivot)) {
+                    push(pivot, REMOVE_EQUATION);
+                } else {
+                    int newBaseVar = matrix.eligibleBase(pivot);
+                    push(pivot, newBaseVar, XOR_AND_MARK_ALL);
+                    push(variable, newBaseVar, SWAP_BASE);
+                }
+                mark(pivot);
+            } else {
+                markEquationsOf(variable);
+            }
+        }
+
+        /* Infer from the marked equations and from the equations of the true variables of the batch */
+        private void inferMarked() {
+            for (int i = 0; i < trueVariables.size(); i++) {
+                markEquationsOf(trueVariables.getInt(i));
+            }
+            int[] toInfer = marked.toIntArray();
+            Arrays.sort(toInfer);
+            for (int equation : toInfer) {
+                List<Propagation> inferred = engine.infer(matrix, equation);
+                if (statistics != null) {
+                    statistics.onEquationInferences(inferred.size());
+                }
+                inferences.addAll(inferred);
+            }
+            clearMarks();
+        }
+
+        private void markEquationsOf(int variable) {
+            collectEquationsOf(variable);
+            for (int i = 0; i < equations.size(); i++) {
+                mark(equations.getInt(i));
+            }
+        }
+
+        private void mark(int equation) {
+            if (!isMarked[equation]) {
+                isMarked[equation] = true;
+                marked.add(equation);
+            }
+        }
+
+        private void clearMarks() {
+            for (int i = 0; i < marked.size(); i++) {
+                isMarked[marked.getInt(i)] = false;
+            }
+            marked.clear();
+        }
+
+        private void pushInferForAllEquationsOf(int variable) {
+            collectEquationsOf(variable);
+            for (int i = equations.size() - 1; i >= 0; i--) {
+                push(equations.getInt(i), INFER);
+            }
+        }
+
+        private void inferAllBaseEqualities(int variable) {
+            collectEquationsOf(variable);
+            for (int i = 0; i < equations.size(); i++) {
+                int pivot = equations.getInt(i);
+                int base = matrix.baseVariableOf(pivot);
+                int firstOffBase = matrix.firstOffBase(pivot);
+                if (firstOffBase != -1) {
+                    if (matrix.isTrue(base)) {
+                        inferThatOtherBasesAreEqualToThisBase(pivot);
+                    } else if (hasEquationWithTrueBase(pivot)) {
+                        inferTrue(base);
+                    }
+                }
+            }
+        }
+
+        /* Return if an equation with the same off-base variables has one more true (its base) and one less unknown */
+        private boolean hasEquationWithTrueBase(int pivot) {
+            equalityPivot = pivot;
+            return matrix.findSameOffBase(pivot, isEqualWithTrueBase) != -1;
+        }
+
+        private boolean isEqualWithTrueBase(int target) {
+            int targetBaseVar = matrix.baseVariableOf(target);
+            return targetBaseVar != -1
+                  && matrix.isTrue(targetBaseVar)
+                  && matrix.nbUnknowns(target) == matrix.nbUnknowns(equalityPivot) - 1
+                  && matrix.nbTrues(target) == matrix.nbTrues(equalityPivot) + 1;
+        }
+
+        private void inferThatOtherBasesAreEqualToThisBase(int pivot) {
+            equalityPivot = pivot;
+            matrix.forEachSameOffBase(pivot, inferIfEqualWithFalseBase);
+        }
+
+        private void inferIfEqualWithFalseBase(int target) {
+            int targetBaseVar = matrix.baseVariableOf(target);
+            assert targetBaseVar != -1;
+            if (
+                  !matrix.isTrue(targetBaseVar)
+                        && matrix.nbUnknowns(target) == matrix.nbUnknowns(equalityPivot) + 1
+                        && matrix.nbTrues(target) == matrix.nbTrues(equalityPivot) - 1
+            ) {
+                inferTrue(targetBaseVar);
+            }
+        }
+
+        private void inferTrue(int variable) {
+            if (statistics != null) {
+                statistics.onBaseEqualityInference();
+            }
+            inferences.add(new Propagation(variable, true));
+        }
+
+        private void collectEquationsOf(int variable) {
+            equations.clear();
+            matrix.forEachEquationOf(variable, addEquation);
+        }
+
+        @Override
+        public void restore(IDancingLinksMatrix matrix) {
+            while (logSize != 0) {
+                int opcode = log[--logSize];
+                switch (opcode) {
+                    case FIX_TRUE:
+                    case FIX_FALSE:
+                        matrix.unSet(log[--logSize]);
+                        break;
+                    case SWAP_BASE: {
+                        int newBaseVar = log[--logSize];
+                        int oldBaseVar = log[--logSize];
+                        int pivot = matrix.pivotOf(newBaseVar);
+                        matrix.setOffBase(newBaseVar);
+                        matrix.setBase(pivot, oldBaseVar);
+                        break;
+                    }
+                    case XOR: {
+                        int pivot = log[--logSize];
+                        int target = log[--logSize];
+                        matrix.xor(target, pivot);
+                        break;
+                    }
+                    case REMOVE_EQUATION:
+                        matrix.restoreEquation(log[--logSize]);
+                        break;
+                    case REMOVE_VARIABLE:
+                        matrix.restoreVariable(log[--logSize]);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown opcode " + opcode);
+                }
+            }
+        }
+
+        private void push(int operand, int opcode) {
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            }
+            stack[top++] = operand;
+            stack[top++] = opcode;
+        }
+
+        private void push(int first, int second, int opcode) {
+            if (top + 3 > stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            }
+            stack[top++] = first;
+            stack[top++] = second;
+            stack[top++] = opcode;
+        }
+
+        private void log(int operand, int opcode) {
+            if (logSize + 2 > log.length) {
+                log = Arrays.copyOf(log, 2 * log.length);
+            }
+            log[logSize++] = operand;
+            log[logSize++] = opcode;
+        }
+
+        private void log(int first, int second, int opcode) {
+            if (logSize + 3 > log.length) {
+                log = Arrays.copyOf(log, 2 * log.length);
+            }
+            log[logSize++] = first;
+            log[logSize++] = second;
+            log[logSize++] = opcode;
+        }
+
+        @Override
+        public String toString() {
+            if (batchSize > 1) {
+                return "Assignations(variable=" + variable + ", value=" + value + ", size=" + batchSize + ")";
+            }
+            return "Assignation(variable=" + variable + ", value=" + value + ")";
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.github.rloic.constraints.abstractxor.rulesapplier.impl;
 
 import com.github.rloic.dancinglinks.IDancingLinksMatrix;
+import com.github.rloic.dancinglinks.XorStatistics;
 import com.github.rloic.dancinglinks.actions.IUpdater;
 import com.github.rloic.dancinglinks.actions.UpdaterList;
 import com.github.rloic.dancinglinks.actions.impl.*;
@@ -13,6 +14,7 @@ import it.unimi.dsi.fastutil.Function;
 public class FullRulesApplier implements RulesApplier {
 
     private final InferenceEngine engine;
+    private XorStatistics statistics;
 
     public FullRulesApplier() {
         this.engine = new FullInferenceEngine();
@@ -22,6 +24,11 @@ public class FullRulesApplier implements RulesApplier {
         this.engine = engine;
     }
 
+    @Override
+    public void setStatistics(XorStatistics statistics) {
+        this.statistics = statistics;
+    }
+
     public IUpdater buildTrueAssignation(int variable) {
         return fix(variable, true)
                 .then(matrix -> {
@@ -76,8 +83,7 @@ public class FullRulesApplier implements RulesApplier {
             assert baseVar != -1;
             UpdaterList sameVar = new UpdaterList("InferBasesEqualities");
             if (m.isTrue(baseVar)) {
-                int firstOffBase = m.firstOffBase(pivot);
-                inferThatOtherBaseAreEqualsToThisBase(m, sameVar, pivot, firstOffBase);
+                inferThatOtherBaseAreEqualsToThisBase(m, sameVar, pivot);
             }
             return sameVar;
         };
@@ -89,20 +95,18 @@ public class FullRulesApplier implements RulesApplier {
 
     final IUpdater inferForAllEquationsOf(IDancingLinksMatrix matrix, int variable) {
         UpdaterList updaterList = new UpdaterList("InferForAllEquations");
-        for (int equation : matrix.equationsOf(variable)) {
-            updaterList.addUncommitted(infer(equation));
-        }
+        matrix.forEachEquationOf(variable, equation -> updaterList.addUncommitted(infer(equation)));
         return updaterList;
     }
 
     final IUpdater xorAndInferAllEquationsOf(IDancingLinksMatrix matrix, int pivot, int variable) {
         UpdaterList updaterList = new UpdaterList("XorAndInferForAllEquations");
-        for (int equation : matrix.equationsOf(variable)) {
+        matrix.forEachEquationOf(variable, equation -> {
             if (equation != pivot) {
                 updaterList.addUncommitted(xor(equation, pivot));
                 updaterList.addUncommitted(infer(equation));
             }
-        }
+        });
         return updaterList;
     }
 
@@ -117,46 +121,42 @@ public class FullRulesApplier implements RulesApplier {
             IDancingLinksMatrix m = (IDancingLinksMatrix) matrix;
             UpdaterList updaters = new UpdaterList();
 
-            for (int pivot : m.equationsOf(variable)) {
+            m.forEachEquationOf(variable, pivot -> {
                 int base = m.baseVariableOf(pivot);
                 int firstOffBase = m.firstOffBase(pivot);
                 if (firstOffBase != -1) {
                     if (m.isTrue(base)) {
-                        inferThatOtherBaseAreEqualsToThisBase(m, updaters, pivot, firstOffBase);
+                        inferThatOtherBaseAreEqualsToThisBase(m, updaters, pivot);
                     } else {
-                        for (int target : m.equationsOf(firstOffBase)) {
-                            int targetBaseVar = m.baseVariableOf(target);
-                            if (
-                                    targetBaseVar != -1
-                                            && m.isTrue(targetBaseVar)
-                                            && m.nbUnknowns(target) == m.nbUnknowns(pivot) - 1
-                                            && m.nbTrues(target) == m.nbTrues(pivot) + 1
-                                            && m.sameOffBaseVariables(target, pivot)
-                            ) {
-                                updaters.addUncommitted(propagation(base, true));
-                                break;
-                            }
+                        int target = m.findSameOffBase(pivot, it -> {
+                            int targetBaseVar = m.baseVariableOf(it);
+                            return targetBaseVar != -1
+                                    && m.isTrue(targetBaseVar)
+                                    && m.nbUnknowns(it) == m.nbUnknowns(pivot) - 1
+                                    && m.nbTrues(it) == m.nbTrues(pivot) + 1;
+                        });
+                        if (target != -1) {
+                            updaters.addUncommitted(propagation(base, true));
                         }
                     }
                 }
-            }
+            });
             return updaters;
         };
     }
 
-    private void inferThatOtherBaseAreEqualsToThisBase(IDancingLinksMatrix m, UpdaterList updaters, int pivot, int firstOffBase) {
-        for (int target : m.equationsOf(firstOffBase)) {
+    private void inferThatOtherBaseAreEqualsToThisBase(IDancingLinksMatrix m, UpdaterList updaters, int pivot) {
+        m.forEachSameOffBase(pivot, target -> {
             int targetBaseVar = m.baseVariableOf(target);
             assert targetBaseVar != -1;
             if (
                     !m.isTrue(targetBaseVar)
                   && m.nbUnknowns(target) == m.nbUnknowns(pivot) + 1
                   && m.nbTrues(target) == m.nbTrues(pivot) - 1
-                  && m.sameOffBaseVariables(target, pivot)
             ) {
                 updaters.addUncommitted(propagation(targetBaseVar, true));
             }
-        }
+        });
     }
 
     final IUpdater removeEquation(int equation) {
@@ -172,10 +172,13 @@ public class FullRulesApplier implements RulesApplier {
     }
 
     final IUpdater infer(int equation) {
-        return new InferFromEquation(engine, equation);
+        return new InferFromEquation(engine, equation, statistics);
     }
 
     final IUpdater propagation(int variable, boolean value) {
+        if (statistics != null) {
+            statistics.onBaseEqualityInference();
+        }
         return new InferAffectation(variable, value);
     }
 
@@ -11,6 +11,11 @@ public class PartialRulesApplier extends FullRulesApplier implements RulesApplie
       super(new PartialInferenceEngine());
    }
 
+   @Override
+   public boolean infersBaseEqualities() {
+      return false;
+   }
+
    @Override
    public IUpdater buildTrueAssignation(int variable) {
       return new Fix(variable, true)
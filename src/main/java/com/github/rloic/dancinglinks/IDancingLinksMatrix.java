@@ -1,6 +1,11 @@
 package com.github.rloic.dancinglinks;
 
-import it.unimi.dsi.fastutil.ints.IntSet;
+import com.github.rloic.common.collections.SparseSet;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 
 public interface IDancingLinksMatrix {
 
@@ -130,10 +135,30 @@ public interface IDancingLinksMatrix {
 
    /**
     * The equations of the variable
+    * The equations are copied in a new list, the hot paths should prefer forEachEquationOf
     * @param variable The variable
     * @return An iterable over the equations of the variable
     */
-   Iterable<Integer> equationsOf(int variable);
+   default Iterable<Integer> equationsOf(int variable) {
+      IntList equations = new IntArrayList();
+      forEachEquationOf(variable, equations::add);
+      return equations;
+   }
+
+   /**
+    * Apply the action on each active equation of the variable (in increasing order), without allocation
+    * @param variable The variable
+    * @param action The action applied on each equation
+    */
+   void forEachEquationOf(int variable, IntConsumer action);
+
+   /**
+    * Return the first active equation of the variable that satisfies the predicate
+    * @param variable The variable
+    * @param predicate The predicate
+    * @return The first equation of the variable that satisfies the predicate (if one) else -1
+    */
+   int findEquationOf(int variable, IntPredicate predicate);
 
    /**
     * Return the pivot equation of the variable
@@ -164,6 +189,8 @@ public interface IDancingLinksMatrix {
 
    /**
     * Return the next variable that's eligible as a base
+    * The variable is chosen by the pivot policy of the matrix (if one) else it is the candidate that belongs to the
+    * fewest equations
     * @param pivot The pivot equation
     * @return The next variable that's eligible as a base (if one) else -1
     */
@@ -190,10 +217,22 @@ public interface IDancingLinksMatrix {
 
    /**
     * Return an iterator over the variables of the equation 'target'
+    * The variables are copied in a new list, the hot paths should prefer forEachVariableOf
     * @param target The equation
     * @return An iterable of the variables of the equation 'target'
     */
-   Iterable<Integer> variablesOf(int target);
+   default Iterable<Integer> variablesOf(int target) {
+      IntList variables = new IntArrayList();
+      forEachVariableOf(target, variables::add);
+      return variables;
+   }
+
+   /**
+    * Apply the action on each active variable of the equation (in increasing order), without allocation
+    * @param equation The equation
+    * @param action The action applied on each variable
+    */
+   void forEachVariableOf(int equation, IntConsumer action);
 
    /**
     * Return if the equation eq1 and the equation eq2 have the same variables (except for their base)
@@ -203,6 +242,42 @@ public interface IDancingLinksMatrix {
     */
    boolean sameOffBaseVariables(int eq1, int eq2);
 
+   /**
+    * Apply the action on each other active equation that has the same variables as the equation (except for their base)
+    * @param equation The equation
+    * @param action The action
+    */
+   default void forEachSameOffBase(int equation, IntConsumer action) {
+      findSameOffBase(equation, other -> {
+         action.accept(other);
+         return false;
+      });
+   }
+
+   /**
+    * Return the first other active equation that has the same variables as the equation (except for their base) and
+    * that satisfies the predicate
+    * The default implementation looks for the equations in the equations of an off-base variable of the equation, the
+    * matrices that index the equations by their off-base variables should override it
+    * @param equation The equation
+    * @param predicate The predicate
+    * @return The first equation that satisfies the predicate (if one) else -1
+    */
+   default int findSameOffBase(int equation, IntPredicate predicate) {
+      IntPredicate isSame = other -> other != equation && sameOffBaseVariables(equation, other) && predicate.test(other);
+      int offBase = firstOffBase(equation);
+      if (offBase != -1) {
+         return findEquationOf(offBase, isSame);
+      }
+      int[] found = {-1};
+      forEachActiveEquation(other -> {
+         if (found[0] == -1 && isSame.test(other)) {
+            found[0] = other;
+         }
+      });
+      return found[0];
+   }
+
    /**
     * Return the base variable of the equation
     * @param equation The equation
@@ -212,9 +287,55 @@ public interface IDancingLinksMatrix {
 
    /**
     * Return an iterator over the active equations of the matrix
-    * @return The
+    * The equations are copied in a new list, the hot paths should prefer forEachActiveEquation
+    * @return The active equations of the matrix
     */
-   Iterable<Integer> activeEquations();
+   default Iterable<Integer> activeEquations() {
+      IntList equations = new IntArrayList();
+      forEachActiveEquation(equations::add);
+      return equations;
+   }
+
+   /**
+    * Apply the action on each active equation of the matrix (in increasing order), without allocation
+    * @param action The action applied on each equation
+    */
+   void forEachActiveEquation(IntConsumer action);
+
+   /**
+    * Apply the action on each active equation that has exactly one unknown variable (in increasing order)
+    * The matrices that track the unit equations while they are modified only visit these equations, the default
+    * implementation scans the active equations
+    * @param action The action applied on each unit equation
+    */
+   default void forEachUnitEquation(IntConsumer action) {
+      forEachActiveEquation(equation -> {
+         if (nbUnknowns(equation) == 1) {
+            action.accept(equation);
+         }
+      });
+   }
+
+   /**
+    * Remove and return the next equation of the unit queue
+    * The matrix queues the equations it modifies (an equation is queued once), this method only returns the queued
+    * equations that are still active and have exactly one unknown variable
+    * @return The next unit equation of the queue (if one) else -1
+    */
+   int pollUnitEquation();
+
+   /**
+    * Queue all the current unit equations (the equations already in the queue are not queued twice)
+    */
+   void queueUnitEquations();
+
+   /**
+    * Remove and return the next equation of the binary queue
+    * The matrix queues the equations it modifies in a second queue, this method only returns the queued equations
+    * that are still active and have exactly two unknown variables and no true variable
+    * @return The next binary equation of the queue (if one) else -1
+    */
+   int pollBinaryEquation();
 
    /**
     * Return the number of variables that are not defined
@@ -238,8 +359,48 @@ public interface IDancingLinksMatrix {
 
    /**
     * Return the unassigned variables of the matrix
+    * The set is modified by set and unSet, use {@link SparseSet#toArray()} to iterate it while assigning variables
     * @return The unassigned variables of the matrix
     */
-   IntSet unassignedVars();
+   SparseSet unassignedVars();
+
+   /**
+    * Record the next modifications of the matrix (set, xor, removals and bases) in the trail
+    * The inverse operations (unSet, restorations) are not recorded
+    * @param trail The trail (null to stop recording)
+    */
+   void setTrail(Trail trail);
+
+   /**
+    * Record the next xors of the matrix in the origins of the equations
+    * @param origins The origins (null to stop recording)
+    */
+   void setOrigins(Origins origins);
+
+   /**
+    * Count the next xors, base changes and fill-in of the matrix in the statistics
+    * @param statistics The statistics (null to stop counting)
+    */
+   void setStatistics(XorStatistics statistics);
+
+   /**
+    * Choose the next bases of the matrix with the policy
+    * @param policy The policy (null to choose the candidate that belongs to the fewest equations)
+    */
+   void setPivotPolicy(PivotPolicy policy);
+
+   /**
+    * Return a copy of the current state of the matrix (rows, active equations and variables, bases and values)
+    * @return The state of the matrix
+    */
+   MatrixState snapshot();
+
+   /**
+    * Replace the current state of the matrix by the given state without replaying the xors
+    * The state must have the same number of equations and variables as the matrix. The matrix can't restore the
+    * modifications done before this call (the removed equations and variables stay removed)
+    * @param state The new state of the matrix
+    */
+   void restoreFrom(MatrixState state);
 
 }
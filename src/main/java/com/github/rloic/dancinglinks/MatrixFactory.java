@@ -0,0 +1,17 @@
+package com.github.rloic.dancinglinks;
+
+/**
+ * Builds the matrix that backs an abstract XOR propagator
+ */
+@FunctionalInterface
+public interface MatrixFactory {
+
+   /**
+    * Create a new matrix for the given equations
+    * @param equations The equations (each equation is the list of its variables)
+    * @param nbVariables The number of variables (the number of columns)
+    * @return A matrix that represents the equations
+    */
+   IDancingLinksMatrix create(int[][] equations, int nbVariables);
+
+}
@@ -0,0 +1,262 @@
+package com.github.rloic.dancinglinks;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An immutable copy of the state of a matrix: the rows, the active equations and variables, the bases (and so the
+ * pivots) and the values of the variables
+ * A state is taken with {@link IDancingLinksMatrix#snapshot()} and loaded into a matrix of the same size with
+ * {@link IDancingLinksMatrix#restoreFrom(MatrixState)}, it can be shared between threads. The state can also be
+ * written in a compact binary form (varints, delta-encoded rows and packed flags) with {@link #encode()} and read
+ * back with {@link #decode(ByteBuffer)}.
+ */
+public final class MatrixState {
+
+   public static final byte UNDEFINED = 0;
+   public static final byte FALSE = -1;
+   public static final byte TRUE = 1;
+
+   private static final int MAGIC = 0x584F5231;
+
+   private final int nbVariables;
+   private final int[][] rows;
+   private final boolean[] activeEquations;
+   private final boolean[] activeVariables;
+   private final int[] baseOf;
+   private final byte[] valueOf;
+
+   /**
+    * Create a new state, the arrays are not copied
+    * @param nbVariables The number of variables
+    * @param rows The variables of each equation (removed variables included) in increasing order
+    * @param activeEquations Indicates for each equation if it's active
+    * @param activeVariables Indicates for each variable if it's active
+    * @param baseOf The base variable of each equation (-1 if none)
+    * @param valueOf The value of each variable (UNDEFINED, FALSE or TRUE)
+    */
+   public MatrixState(
+         int nbVariables,
+         int[][] rows,
+         boolean[] activeEquations,
+         boolean[] activeVariables,
+         int[] baseOf,
+         byte[] valueOf
+   ) {
+      this.nbVariables = nbVariables;
+      this.rows = rows;
+      this.activeEquations = activeEquations;
+      this.activeVariables = activeVariables;
+      this.baseOf = baseOf;
+      this.valueOf = valueOf;
+   }
+
+   public int nbEquations() {
+      return rows.length;
+   }
+
+   public int nbVariables() {
+      return nbVariables;
+   }
+
+   /**
+    * Return the variables of the equation (removed variables included) in increasing order
+    * The returned array must not be modified
+    * @param equation The equation
+    * @return The variables of the equation
+    */
+   public int[] variablesOf(int equation) {
+      return rows[equation];
+   }
+
+   public boolean isActiveEquation(int equation) {
+      return activeEquations[equation];
+   }
+
+   public boolean isActiveVariable(int variable) {
+      return activeVariables[variable];
+   }
+
+   public int baseVariableOf(int equation) {
+      return baseOf[equation];
+   }
+
+   public byte valueOf(int variable) {
+      return valueOf[variable];
+   }
+
+   /**
+    * Encode the state
+    * @return The binary form of the state
+    */
+   public byte[] encode() {
+      Writer out = new Writer(16 + nbVariables + 4 * rows.length);
+      out.writeInt(MAGIC);
+      out.writeVarInt(rows.length);
+      out.writeVarInt(nbVariables);
+      for (int variable = 0; variable < nbVariables; variable += 4) {
+         int packed = 0;
+         for (int i = 0; i < 4 && variable + i < nbVariables; i++) {
+            packed |= code(valueOf[variable + i]) << (2 * i);
+         }
+         out.writeByte(packed);
+      }
+      out.writeFlags(activeVariables);
+      out.writeFlags(activeEquations);
+      for (int equation = 0; equation < rows.length; equation++) {
+         int[] row = rows[equation];
+         out.writeVarInt(baseOf[equation] + 1);
+         out.writeVarInt(row.length);
+         int previous = 0;
+         for (int variable : row) {
+            out.writeVarInt(variable - previous);
+            previous = variable;
+         }
+      }
+      return out.toByteArray();
+   }
+
+   /**
+    * Decode a state from the current position of the buffer
+    * @param buffer A buffer that contains a state written by encode
+    * @return The decoded state
+    */
+   public static MatrixState decode(ByteBuffer buffer) {
+      if (buffer.getInt() != MAGIC) {
+         throw new IllegalArgumentException("The buffer doesn't contain a matrix state");
+      }
+      int nbEquations = readVarInt(buffer);
+      int nbVariables = readVarInt(buffer);
+      byte[] valueOf = new byte[nbVariables];
+      for (int variable = 0; variable < nbVariables; variable += 4) {
+         int packed = buffer.get() & 0xFF;
+         for (int i = 0; i < 4 && variable + i < nbVariables; i++) {
+            valueOf[variable + i] = value((packed >>> (2 * i)) & 3);
+         }
+      }
+      boolean[] activeVariables = readFlags(buffer, nbVariables);
+      boolean[] activeEquations = readFlags(buffer, nbEquations);
+      int[][] rows = new int[nbEquations][];
+      int[] baseOf = new int[nbEquations];
+      for (int equation = 0; equation < nbEquations; equation++) {
+         baseOf[equation] = readVarInt(buffer) - 1;
+         int[] row = new int[readVarInt(buffer)];
+         int previous = 0;
+         for (int i = 0; i < row.length; i++) {
+            previous += readVarInt(buffer);
+            row[i] = previous;
+         }
+         rows[equation] = row;
+      }
+      return new MatrixState(nbVariables, rows, activeEquations, activeVariables, baseOf, valueOf);
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      MatrixState that = (MatrixState) o;
+      return nbVariables == that.nbVariables
+            && Arrays.deepEquals(rows, that.rows)
+            && Arrays.equals(activeEquations, that.activeEquations)
+            && Arrays.equals(activeVariables, that.activeVariables)
+            && Arrays.equals(baseOf, that.baseOf)
+            && Arrays.equals(valueOf, that.valueOf);
+   }
+
+   @Override
+   public int hashCode() {
+      int result = nbVariables;
+      result = 31 * result + Arrays.deepHashCode(rows);
+      result = 31 * result + Arrays.hashCode(activeEquations);
+      result = 31 * result + Arrays.hashCode(activeVariables);
+      result = 31 * result + Arrays.hashCode(baseOf);
+      result = 31 * result + Arrays.hashCode(valueOf);
+      return result;
+   }
+
+   private static int code(byte value) {
+      if (value == TRUE) return 2;
+      if (value == FALSE) return 1;
+      return 0;
+   }
+
+   private static byte value(int code) {
+      if (code == 2) return TRUE;
+      if (code == 1) return FALSE;
+      return UNDEFINED;
+   }
+
+   private static int readVarInt(ByteBuffer buffer) {
+      int value = 0;
+      int shift = 0;
+      int b;
+      do {
+         b = buffer.get();
+         value |= (b & 0x7F) << shift;
+         shift += 7;
+      } while ((b & 0x80) != 0);
+      return value;
+   }
+
+   private static boolean[] readFlags(ByteBuffer buffer, int length) {
+      boolean[] flags = new boolean[length];
+      for (int i = 0; i < length; i += 8) {
+         int packed = buffer.get() & 0xFF;
+         for (int j = 0; j < 8 && i + j < length; j++) {
+            flags[i + j] = ((packed >>> j) & 1) != 0;
+         }
+      }
+      return flags;
+   }
+
+   /* A growable byte array */
+   private static class Writer {
+
+      private byte[] bytes;
+      private int size;
+
+      Writer(int capacity) {
+         bytes = new byte[capacity];
+      }
+
+      void writeByte(int b) {
+         if (size == bytes.length) {
+            bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+         }
+         bytes[size++] = (byte) b;
+      }
+
+      void writeInt(int value) {
+         writeByte(value >>> 24);
+         writeByte(value >>> 16);
+         writeByte(value >>> 8);
+         writeByte(value);
+      }
+
+      void writeVarInt(int value) {
+         while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+         }
+         writeByte(value);
+      }
+
+      void writeFlags(boolean[] flags) {
+         for (int i = 0; i < flags.length; i += 8) {
+            int packed = 0;
+            for (int j = 0; j < 8 && i + j < flags.length; j++) {
+               if (flags[i + j]) {
+                  packed |= 1 << j;
+               }
+            }
+            writeByte(packed);
+         }
+      }
+
+      byte[] toByteArray() {
+         return Arrays.copyOf(bytes, size);
+      }
+   }
+
+}
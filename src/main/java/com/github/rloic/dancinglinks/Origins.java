@@ -0,0 +1,56 @@
+package com.github.rloic.dancinglinks;
+
+import java.util.function.IntConsumer;
+
+/**
+ * The origins of the equations of a matrix
+ * The origins of an equation are the equations (as they were when the tracking started) whose sum gives the
+ * equation. They are stored as a bitset by equation: a xor between two equations is a xor between their origins,
+ * so undoing a xor (xoring again) also restores the origins.
+ */
+public final class Origins {
+
+   private final long[][] originsOf;
+
+   /**
+    * Start the tracking, each equation is its own origin
+    * @param nbEquations The number of equations
+    */
+   public Origins(int nbEquations) {
+      int length = (nbEquations + 63) >>> 6;
+      originsOf = new long[nbEquations][length];
+      for (int equation = 0; equation < nbEquations; equation++) {
+         originsOf[equation][equation >>> 6] = 1L << equation;
+      }
+   }
+
+   /**
+    * Record the xor of the pivot into the target
+    * @param target The target equation
+    * @param pivot The pivot equation
+    */
+   public void xor(int target, int pivot) {
+      long[] originsOfTarget = originsOf[target];
+      long[] originsOfPivot = originsOf[pivot];
+      for (int word = 0; word < originsOfTarget.length; word++) {
+         originsOfTarget[word] ^= originsOfPivot[word];
+      }
+   }
+
+   /**
+    * Apply the action on each origin of the equation
+    * @param equation The equation
+    * @param action The action applied on each origin
+    */
+   public void forEachOriginOf(int equation, IntConsumer action) {
+      long[] origins = originsOf[equation];
+      for (int word = 0; word < origins.length; word++) {
+         long bits = origins[word];
+         while (bits != 0) {
+            action.accept((word << 6) + Long.numberOfTrailingZeros(bits));
+            bits &= bits - 1;
+         }
+      }
+   }
+
+}
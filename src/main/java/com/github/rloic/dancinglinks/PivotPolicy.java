@@ -0,0 +1,40 @@
+package com.github.rloic.dancinglinks;
+
+import com.github.rloic.dancinglinks.impl.MarkowitzPivotPolicy;
+
+/**
+ * The choice of the new base of an equation whose base is assigned to false
+ * The other equations of the new base are then xored with the equation, so the choice decides the fill-in of the
+ * matrix. The candidates are the variables of the equation that are true or undefined and that are not a base.
+ * The policy is enabled by setting the system property {@value #POLICY_PROPERTY} (the matrices otherwise choose the
+ * candidate that belongs to the fewest equations).
+ */
+public interface PivotPolicy {
+
+   String POLICY_PROPERTY = "abstractxor.pivot.policy";
+
+   /**
+    * Choose the new base of the pivot
+    * @param matrix The matrix
+    * @param pivot The pivot equation
+    * @return The new base (if one) else -1
+    */
+   int choose(IDancingLinksMatrix matrix, int pivot);
+
+   /**
+    * Return the policy configured by the system property {@value #POLICY_PROPERTY} ("markowitz")
+    * @param statistics The statistics the policy reports to (can be null)
+    * @return The policy if the property is set else null
+    */
+   static PivotPolicy fromSystemProperties(XorStatistics statistics) {
+      String policy = System.getProperty(POLICY_PROPERTY);
+      if (policy == null || policy.isEmpty()) {
+         return null;
+      }
+      if (policy.equals("markowitz")) {
+         return new MarkowitzPivotPolicy(statistics);
+      }
+      throw new IllegalArgumentException("Unknown pivot policy " + policy);
+   }
+
+}
@@ -0,0 +1,125 @@
+package com.github.rloic.dancinglinks;
+
+import java.util.Arrays;
+
+/**
+ * An undo log of the modifications of a matrix
+ * A matrix with a trail (see {@link IDancingLinksMatrix#setTrail(Trail)}) records each modification as an opcode
+ * and its operands in a primitive array. Undoing the log back to a previous size replays the inverse operations
+ * in the reverse order (unSet, restoreEquation, restoreVariable, xor, setBase and setOffBase), so that the
+ * modifications don't have to be kept as updater objects to be undone.
+ * The entries are stored as [operands..., opcode] so that the log can be read from its end.
+ */
+public final class Trail {
+
+   private static final int SET = 0;
+   private static final int REMOVE_VARIABLE = 1;
+   private static final int REMOVE_EQUATION = 2;
+   private static final int XOR = 3;
+   private static final int SET_BASE = 4;
+   private static final int SET_OFF_BASE = 5;
+
+   private int[] log;
+   private int size;
+
+   public Trail() {
+      log = new int[1024];
+   }
+
+   /**
+    * Return the current size of the log, the matrix can be brought back to the current state with undo(size)
+    * @return The size of the log
+    */
+   public int size() {
+      return size;
+   }
+
+   public void set(int variable) {
+      push(variable, SET);
+   }
+
+   public void removeVariable(int variable) {
+      push(variable, REMOVE_VARIABLE);
+   }
+
+   public void removeEquation(int equation) {
+      push(equation, REMOVE_EQUATION);
+   }
+
+   public void xor(int target, int pivot) {
+      push(target, pivot, XOR);
+   }
+
+   public void setBase(int pivot, int variable) {
+      push(pivot, variable, SET_BASE);
+   }
+
+   public void setOffBase(int pivot, int variable) {
+      push(pivot, variable, SET_OFF_BASE);
+   }
+
+   /**
+    * Undo the modifications recorded after the given size of the log
+    * The trail is detached from the matrix while the inverse operations are applied
+    * @param matrix The matrix that recorded the modifications
+    * @param mark The size of the log to go back to
+    */
+   public void undo(IDancingLinksMatrix matrix, int mark) {
+      matrix.setTrail(null);
+      while (size > mark) {
+         int opcode = log[--size];
+         switch (opcode) {
+            case SET:
+               matrix.unSet(log[--size]);
+               break;
+            case REMOVE_VARIABLE:
+               matrix.restoreVariable(log[--size]);
+               break;
+            case REMOVE_EQUATION:
+               matrix.restoreEquation(log[--size]);
+               break;
+            case XOR: {
+               int pivot = log[--size];
+               int target = log[--size];
+               matrix.xor(target, pivot);
+               break;
+            }
+            case SET_BASE: {
+               int variable = log[--size];
+               size -= 1;
+               matrix.setOffBase(variable);
+               break;
+            }
+            case SET_OFF_BASE: {
+               int variable = log[--size];
+               int pivot = log[--size];
+               matrix.setBase(pivot, variable);
+               break;
+            }
+            default:
+               throw new IllegalStateException("Unknown opcode " + opcode);
+         }
+      }
+      matrix.setTrail(this);
+   }
+
+   private void push(int operand, int opcode) {
+      ensureCapacity(2);
+      log[size++] = operand;
+      log[size++] = opcode;
+   }
+
+   private void push(int first, int second, int opcode) {
+      ensureCapacity(3);
+      log[size++] = first;
+      log[size++] = second;
+      log[size++] = opcode;
+   }
+
+   private void ensureCapacity(int length) {
+      if (size + length > log.length) {
+         log = Arrays.copyOf(log, 2 * log.length);
+      }
+   }
+
+}
@@ -0,0 +1,194 @@
+package com.github.rloic.dancinglinks;
+
+import org.chocosolver.solver.Solver;
+
+import java.util.Locale;
+
+/**
+ * Counters of the work done on the xor matrices of a model
+ * The counters are plain fields incremented by the matrices (see
+ * {@link IDancingLinksMatrix#setStatistics(XorStatistics)}), the rules appliers and the propagators that share the
+ * statistics, so they are cheap enough to always be enabled. They tell whether a run is dominated by the
+ * elimination, the fill-in of the matrices or the search.
+ */
+public final class XorStatistics {
+
+   /* The work on the matrices */
+   private long nbXors;
+   private long nbBaseChanges;
+   private long nbFillIn;
+   private long nbFillInAvoided;
+
+   /* The inferences by rule */
+   private long nbEquationInferences;
+   private long nbBaseEqualityInferences;
+   private long nbUnitEquationInferences;
+   private long nbEquivalenceInferences;
+
+   /* The failures by rule */
+   private long nbInvalidEquationFailures;
+   private long nbRemovalFailures;
+   private long nbIncoherenceFailures;
+
+   /* The levels of the synchronizations of an adaptive rules applier and its last depth of full consistency */
+   private long nbFullSynchronizations;
+   private long nbPartialSynchronizations;
+   private int fullDepth = -1;
+
+   /* The time spent in the eliminations of the root node */
+   private long gaussNanos;
+
+   public void onXor() {
+      nbXors += 1;
+   }
+
+   public void onBaseChange() {
+      nbBaseChanges += 1;
+   }
+
+   /**
+    * Record the cells added to an equation by a xor
+    * @param nbCells The number of cells
+    */
+   public void onFillIn(int nbCells) {
+      nbFillIn += nbCells;
+   }
+
+   /**
+    * Record the cells that a pivot policy saved compared to the base the matrix would have chosen
+    * @param nbCells The number of cells
+    */
+   public void onFillInAvoided(int nbCells) {
+      nbFillInAvoided += nbCells;
+   }
+
+   /* The inferences of the inference engine on a single equation */
+   public void onEquationInferences(int nbInferences) {
+      nbEquationInferences += nbInferences;
+   }
+
+   /* An inference of a base from the equality of two equations */
+   public void onBaseEqualityInference() {
+      nbBaseEqualityInferences += 1;
+   }
+
+   /* An inference from an equation left with a single unknown variable */
+   public void onUnitEquationInference() {
+      nbUnitEquationInferences += 1;
+   }
+
+   /* An inference of a variable from the class of equal variables of an assigned variable */
+   public void onEquivalenceInference() {
+      nbEquivalenceInferences += 1;
+   }
+
+   /* An assignment that makes an equation invalid */
+   public void onInvalidEquationFailure() {
+      nbInvalidEquationFailures += 1;
+   }
+
+   /* An updater whose pre-condition fails (such as the removal of an equation that is not empty) */
+   public void onRemovalFailure() {
+      nbRemovalFailures += 1;
+   }
+
+   /* An assignment of the solver that contradicts the value of the variable in the matrix */
+   public void onIncoherenceFailure() {
+      nbIncoherenceFailures += 1;
+   }
+
+   /* A synchronization of an adaptive rules applier with the full (true) or the partial (false) rules */
+   public void onSynchronizationLevel(boolean full) {
+      if (full) {
+         nbFullSynchronizations += 1;
+      } else {
+         nbPartialSynchronizations += 1;
+      }
+   }
+
+   /* The depth down to which an adaptive rules applier uses the full rules */
+   public void onFullDepth(int depth) {
+      fullDepth = depth;
+   }
+
+   public void onGauss(long nanos) {
+      gaussNanos += nanos;
+   }
+
+   public long getNbXors() {
+      return nbXors;
+   }
+
+   public long getNbBaseChanges() {
+      return nbBaseChanges;
+   }
+
+   public long getNbFillIn() {
+      return nbFillIn;
+   }
+
+   public long getNbFillInAvoided() {
+      return nbFillInAvoided;
+   }
+
+   public long getNbInferences() {
+      return nbEquationInferences + nbBaseEqualityInferences + nbUnitEquationInferences + nbEquivalenceInferences;
+   }
+
+   public long getNbEquivalenceInferences() {
+      return nbEquivalenceInferences;
+   }
+
+   public long getNbFailures() {
+      return nbInvalidEquationFailures + nbRemovalFailures + nbIncoherenceFailures;
+   }
+
+   public long getNbFullSynchronizations() {
+      return nbFullSynchronizations;
+   }
+
+   public long getNbPartialSynchronizations() {
+      return nbPartialSynchronizations;
+   }
+
+   public int getFullDepth() {
+      return fullDepth;
+   }
+
+   public long getGaussNanos() {
+      return gaussNanos;
+   }
+
+   /**
+    * Print the counters on the output of the solver, after its short statistics (see Solver#printShortStatistics)
+    * @param solver The solver of the model the statistics are shared in
+    */
+   public void printShortStatistics(Solver solver) {
+      solver.printShortStatistics();
+      solver.getOut().println(this);
+   }
+
+   @Override
+   public String toString() {
+      String levels = "";
+      if (nbFullSynchronizations + nbPartialSynchronizations != 0) {
+         levels = String.format(
+               Locale.ROOT,
+               ", %d full and %d partial synchronizations (full down to depth %d)",
+               nbFullSynchronizations, nbPartialSynchronizations, fullDepth
+         );
+      }
+      return String.format(
+            Locale.ROOT,
+            "Xor: %d xors, %d base changes, %d fill-in cells (%d avoided by the pivot policy), " +
+                  "%d inferences (equation: %d, base equality: %d, unit equation: %d, equivalence: %d), " +
+                  "%d failures (invalid equation: %d, removal: %d, incoherence: %d), %.3fs in gauss",
+            nbXors, nbBaseChanges, nbFillIn, nbFillInAvoided,
+            getNbInferences(), nbEquationInferences, nbBaseEqualityInferences, nbUnitEquationInferences,
+            nbEquivalenceInferences,
+            getNbFailures(), nbInvalidEquationFailures, nbRemovalFailures, nbIncoherenceFailures,
+            gaussNanos / 1e9
+      ) + levels;
+   }
+
+}
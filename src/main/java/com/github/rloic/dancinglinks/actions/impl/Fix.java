@@ -28,11 +28,8 @@ public class Fix extends Updater implements IUpdater {
 
    @Override
    protected boolean postCondition(IDancingLinksMatrix matrix) {
-      for(int equation : matrix.equationsOf(variable)) {
-         if(matrix.isInvalid(equation)) return false;
-      }
       assert !matrix.isUndefined(variable);
-      return true;
+      return matrix.findEquationOf(variable, matrix::isInvalid) == -1;
    }
 
    @Override
@@ -1,6 +1,7 @@
 package com.github.rloic.dancinglinks.actions.impl;
 
 import com.github.rloic.dancinglinks.IDancingLinksMatrix;
+import com.github.rloic.dancinglinks.XorStatistics;
 import com.github.rloic.dancinglinks.actions.IUpdater;
 import com.github.rloic.dancinglinks.actions.Propagation;
 import com.github.rloic.dancinglinks.actions.Updater;
@@ -15,10 +16,21 @@ public class InferFromEquation extends Updater implements IUpdater {
 
    private final int equation;
    private final InferenceEngine engine;
+   private final XorStatistics statistics;
 
    public InferFromEquation(InferenceEngine engine, int equation) {
+      this(engine, equation, null);
+   }
+
+   /**
+    * @param engine The inference engine
+    * @param equation The equation
+    * @param statistics The statistics that count the inferences (null if they are not counted)
+    */
+   public InferFromEquation(InferenceEngine engine, int equation, XorStatistics statistics) {
       this.engine = engine;
       this.equation = equation;
+      this.statistics = statistics;
    }
 
    @Override
@@ -29,7 +41,11 @@ public class InferFromEquation extends Updater implements IUpdater {
 
    @Override
    protected void onUpdate(IDancingLinksMatrix matrix, List<Propagation> inferences) {
-      inferences.addAll(engine.infer(matrix, equation));
+      List<Propagation> inferred = engine.infer(matrix, equation);
+      if (statistics != null) {
+         statistics.onEquationInferences(inferred.size());
+      }
+      inferences.addAll(inferred);
    }
 
    @Override
@@ -0,0 +1,321 @@
+package com.github.rloic.dancinglinks.cell;
+
+import java.util.Arrays;
+
+/**
+ * The cells of a DancingLinks structure stored as a struct of arrays
+ * A cell is an index into the arrays left/right/top/bottom (its links) and row/col (its position). The index
+ * {@link #ROOT} is the root, the indices 1..nbEquations are the row headers, the next nbVariables indices are
+ * the column headers and the data cells come after them.
+ * Unlinking or relinking a cell only writes a few ints in contiguous arrays.
+ */
+public final class CellArena {
+
+   public static final int ROOT = 0;
+   public static final int NONE = -1;
+
+   private final int nbEquations;
+   private final int nbVariables;
+   private final int firstData;
+
+   private int[] left;
+   private int[] right;
+   private int[] top;
+   private int[] bottom;
+   private int[] row;
+   private int[] col;
+
+   private int size;
+
+   public CellArena(int nbEquations, int nbVariables, int expectedNbData) {
+      this.nbEquations = nbEquations;
+      this.nbVariables = nbVariables;
+      this.firstData = 1 + nbEquations + nbVariables;
+      int capacity = firstData + Math.max(expectedNbData, 16);
+      left = new int[capacity];
+      right = new int[capacity];
+      top = new int[capacity];
+      bottom = new int[capacity];
+      row = new int[capacity];
+      col = new int[capacity];
+
+      selfLinked(ROOT, NONE, NONE);
+      size = 1;
+      for (int equation = 0; equation < nbEquations; equation++) {
+         int header = size++;
+         selfLinked(header, equation, NONE);
+         int previous = header - 1;
+         top[header] = previous;
+         bottom[header] = bottom[previous];
+         bottom[top[header]] = header;
+         top[bottom[header]] = header;
+      }
+      for (int variable = 0; variable < nbVariables; variable++) {
+         int header = size++;
+         selfLinked(header, NONE, variable);
+         int previous = (variable == 0) ? ROOT : header - 1;
+         left[header] = previous;
+         right[header] = right[previous];
+         right[left[header]] = header;
+         left[right[header]] = header;
+      }
+   }
+
+   /**
+    * Return the header of the row of the equation
+    * @param equation The equation
+    * @return The index of the row header
+    */
+   public int rowHeader(int equation) {
+      return 1 + equation;
+   }
+
+   /**
+    * Return the header of the column of the variable
+    * @param variable The variable
+    * @return The index of the column header
+    */
+   public int columnHeader(int variable) {
+      return 1 + nbEquations + variable;
+   }
+
+   public boolean isData(int cell) {
+      return cell >= firstData;
+   }
+
+   public boolean isRowHeader(int cell) {
+      return cell > ROOT && cell <= nbEquations;
+   }
+
+   public boolean isColumnHeader(int cell) {
+      return cell > nbEquations && cell < firstData;
+   }
+
+   public int left(int cell) {
+      return left[cell];
+   }
+
+   public int right(int cell) {
+      return right[cell];
+   }
+
+   public int top(int cell) {
+      return top[cell];
+   }
+
+   public int bottom(int cell) {
+      return bottom[cell];
+   }
+
+   /**
+    * Return the equation of a data cell or of a row header
+    * @param cell The cell
+    * @return The equation of the cell
+    */
+   public int equation(int cell) {
+      return row[cell];
+   }
+
+   /**
+    * Return the variable of a data cell or of a column header
+    * @param cell The cell
+    * @return The variable of the cell
+    */
+   public int variable(int cell) {
+      return col[cell];
+   }
+
+   /**
+    * Return the number of data cells created
+    * @return The number of data cells created
+    */
+   public int nbData() {
+      return size - firstData;
+   }
+
+   /**
+    * Create a new unlinked data cell
+    * @param equation The equation of the cell
+    * @param variable The variable of the cell
+    * @return The new cell
+    */
+   public int newCell(int equation, int variable) {
+      if (size == left.length) {
+         grow();
+      }
+      int cell = size++;
+      selfLinked(cell, equation, variable);
+      return cell;
+   }
+
+   /**
+    * Create a new data cell linked on the right of 'leftCell' and under 'topCell'
+    * @param equation The equation of the cell
+    * @param variable The variable of the cell
+    * @param leftCell The left neighbour
+    * @param topCell The top neighbour
+    * @return The new cell
+    */
+   public int newCell(int equation, int variable, int leftCell, int topCell) {
+      int cell = newCell(equation, variable);
+      relink(cell, leftCell, topCell);
+      return cell;
+   }
+
+   /**
+    * Unlink a data cell from its row and from its column
+    * @param cell The data cell
+    */
+   public void remove(int cell) {
+      right[left[cell]] = right[cell];
+      left[right[cell]] = left[cell];
+      bottom[top[cell]] = bottom[cell];
+      top[bottom[cell]] = top[cell];
+   }
+
+   /**
+    * Link back a data cell that was removed
+    * @param cell The data cell
+    */
+   public void restore(int cell) {
+      right[left[cell]] = cell;
+      left[right[cell]] = cell;
+      bottom[top[cell]] = cell;
+      top[bottom[cell]] = cell;
+   }
+
+   /**
+    * Link a data cell on the right of 'leftCell' and under 'topCell'
+    * @param cell The data cell
+    * @param leftCell The new left neighbour
+    * @param topCell The new top neighbour
+    */
+   public void relink(int cell, int leftCell, int topCell) {
+      left[cell] = leftCell;
+      right[cell] = right[leftCell];
+      right[leftCell] = cell;
+      left[right[cell]] = cell;
+
+      top[cell] = topCell;
+      bottom[cell] = bottom[topCell];
+      bottom[topCell] = cell;
+      top[bottom[cell]] = cell;
+   }
+
+   /**
+    * Unlink vertically the header of the equation and all its cells
+    * @param equation The equation
+    */
+   public void removeRow(int equation) {
+      int header = rowHeader(equation);
+      int cell = header;
+      do {
+         bottom[top[cell]] = bottom[cell];
+         top[bottom[cell]] = top[cell];
+         cell = right[cell];
+      } while (cell != header);
+   }
+
+   /**
+    * Link back vertically the header of the equation and all its cells
+    * @param equation The equation
+    */
+   public void restoreRow(int equation) {
+      int header = rowHeader(equation);
+      int cell = header;
+      do {
+         bottom[top[cell]] = cell;
+         top[bottom[cell]] = cell;
+         cell = left[cell];
+      } while (cell != header);
+   }
+
+   /**
+    * Unlink horizontally the header of the variable and all its cells
+    * @param variable The variable
+    */
+   public void removeColumn(int variable) {
+      int header = columnHeader(variable);
+      int cell = header;
+      do {
+         right[left[cell]] = right[cell];
+         left[right[cell]] = left[cell];
+         cell = bottom[cell];
+      } while (cell != header);
+   }
+
+   /**
+    * Link back horizontally the header of the variable and all its cells
+    * @param variable The variable
+    */
+   public void restoreColumn(int variable) {
+      int header = columnHeader(variable);
+      int cell = header;
+      do {
+         right[left[cell]] = cell;
+         left[right[cell]] = cell;
+         cell = top[cell];
+      } while (cell != header);
+   }
+
+   /**
+    * Indicates if a data cell is active (i.e. The cells that are linked by the current cell link back to it)
+    * @param cell The data cell
+    * @return true if the cell is active else false
+    */
+   public boolean isActive(int cell) {
+      return left[cell] != cell && right[left[cell]] == cell
+            && right[cell] != cell && left[right[cell]] == cell
+            && top[cell] != cell && bottom[top[cell]] == cell
+            && bottom[cell] != cell && top[bottom[cell]] == cell;
+   }
+
+   /**
+    * Indicates if a data cell is linked in its column
+    * @param cell The data cell
+    * @return true if the cells above and under the cell link back to it
+    */
+   public boolean isLinkedInColumn(int cell) {
+      return bottom[top[cell]] == cell && top[bottom[cell]] == cell;
+   }
+
+   public boolean isRowActive(int equation) {
+      int header = rowHeader(equation);
+      return bottom[top[header]] == header && top[bottom[header]] == header;
+   }
+
+   public boolean isRowSeed(int equation) {
+      int header = rowHeader(equation);
+      return top[header] == ROOT && bottom[header] == ROOT;
+   }
+
+   public boolean isColumnActive(int variable) {
+      int header = columnHeader(variable);
+      return right[left[header]] == header && left[right[header]] == header;
+   }
+
+   public boolean isColumnSeed(int variable) {
+      int header = columnHeader(variable);
+      return left[header] == ROOT && right[header] == ROOT;
+   }
+
+   private void selfLinked(int cell, int equation, int variable) {
+      left[cell] = cell;
+      right[cell] = cell;
+      top[cell] = cell;
+      bottom[cell] = cell;
+      row[cell] = equation;
+      col[cell] = variable;
+   }
+
+   private void grow() {
+      int capacity = left.length + (left.length >> 1);
+      left = Arrays.copyOf(left, capacity);
+      right = Arrays.copyOf(right, capacity);
+      top = Arrays.copyOf(top, capacity);
+      bottom = Arrays.copyOf(bottom, capacity);
+      row = Arrays.copyOf(row, capacity);
+      col = Arrays.copyOf(col, capacity);
+   }
+
+}
@@ -0,0 +1,129 @@
+package com.github.rloic.dancinglinks.cell;
+
+import java.util.Arrays;
+
+/**
+ * Sparse and ordered index of the cells of the matrix
+ * Each column keeps all the cells ever created for it sorted by equation. A binary search gives both the cell
+ * (equation, variable) if it already exists and the position of the row 'equation' in the column, so a fill-in
+ * cell is found or created and placed without walking along the vertical links.
+ * A cell is never removed from the index once created, so that the same cell is reused when a xor brings back a
+ * variable into an equation (the links of the removed cells must stay valid for the restorations). The cells that
+ * are not linked anymore are skipped by the caller.
+ */
+public final class ColumnIndex {
+
+   private static final int MIN_CAPACITY = 4;
+
+   private final int[][] equations;
+   private final int[][] cells;
+   private final int[] sizes;
+
+   public ColumnIndex(int nbVariables) {
+      equations = new int[nbVariables][];
+      cells = new int[nbVariables][];
+      sizes = new int[nbVariables];
+      for (int variable = 0; variable < nbVariables; variable++) {
+         equations[variable] = new int[MIN_CAPACITY];
+         cells[variable] = new int[MIN_CAPACITY];
+      }
+   }
+
+   /**
+    * Return the cell (equation, variable) if it has already been created
+    * @param equation The equation
+    * @param variable The variable
+    * @return The cell if it exists else CellArena.NONE
+    */
+   public int find(int equation, int variable) {
+      int position = positionOf(variable, equation);
+      return isAt(variable, position, equation) ? cells[variable][position] : CellArena.NONE;
+   }
+
+   /**
+    * Return the number of cells of the column whose equation is lower than 'equation'
+    * The cells at the positions [0, positionOf(variable, equation)) are above the row 'equation'
+    * @param variable The variable
+    * @param equation The equation
+    * @return The position of the row 'equation' in the column
+    */
+   public int positionOf(int variable, int equation) {
+      int[] keys = equations[variable];
+      int low = 0;
+      int high = sizes[variable];
+      while (low < high) {
+         int middle = (low + high) >>> 1;
+         if (keys[middle] < equation) {
+            low = middle + 1;
+         } else {
+            high = middle;
+         }
+      }
+      return low;
+   }
+
+   /**
+    * Indicates if the cell at the given position of the column belongs to the equation
+    * @param variable The variable
+    * @param position The position (0 is the top of the column)
+    * @param equation The equation
+    * @return true if the cell (equation, variable) is at the position
+    */
+   public boolean isAt(int variable, int position, int equation) {
+      return position < sizes[variable] && equations[variable][position] == equation;
+   }
+
+   /**
+    * Return the number of cells ever created for the column of the variable
+    * @param variable The variable
+    * @return The number of cells of the column in the index
+    */
+   public int size(int variable) {
+      return sizes[variable];
+   }
+
+   /**
+    * Return the cell at the given position of the column
+    * @param variable The variable
+    * @param position The position (0 is the top of the column)
+    * @return The cell
+    */
+   public int cellAt(int variable, int position) {
+      return cells[variable][position];
+   }
+
+   /**
+    * Record a cell at the bottom of the column of its variable
+    * @param variable The variable of the cell
+    * @param equation The equation of the cell, it must be greater than the equations of the column
+    * @param cell The cell
+    */
+   public void add(int variable, int equation, int cell) {
+      insertAt(variable, sizes[variable], equation, cell);
+   }
+
+   /**
+    * Record a cell into the column of its variable
+    * The cells under the position are shifted by one. The columns stay short (a few dozen cells) and a cell is
+    * created only once for a given (equation, variable), so the shift is cheaper than a tree of the positions.
+    * @param variable The variable of the cell
+    * @param position The position of the cell (given by positionOf)
+    * @param equation The equation of the cell
+    * @param cell The cell
+    */
+   public void insertAt(int variable, int position, int equation, int cell) {
+      int size = sizes[variable];
+      if (size == equations[variable].length) {
+         equations[variable] = Arrays.copyOf(equations[variable], 2 * size);
+         cells[variable] = Arrays.copyOf(cells[variable], 2 * size);
+      }
+      int[] keys = equations[variable];
+      int[] values = cells[variable];
+      System.arraycopy(keys, position, keys, position + 1, size - position);
+      System.arraycopy(values, position, values, position + 1, size - position);
+      keys[position] = equation;
+      values[position] = cell;
+      sizes[variable] = size + 1;
+   }
+
+}
@@ -1,3 +0,0 @@
-package com.github.rloic.dancinglinks.cell;
-
-public abstract class Header extends Cell implements Iterable<Data>, Removable, Restorable {}
@@ -1,7 +0,0 @@
-package com.github.rloic.dancinglinks.cell;
-
-public interface Removable {
-
-   void remove();
-
-}
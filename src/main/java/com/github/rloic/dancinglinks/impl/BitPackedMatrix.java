@@ -0,0 +1,662 @@
+package com.github.rloic.dancinglinks.impl;
+
+import com.github.rloic.common.collections.IntQueue;
+import com.github.rloic.common.collections.SparseSet;
+import com.github.rloic.dancinglinks.IDancingLinksMatrix;
+import com.github.rloic.dancinglinks.MatrixState;
+import com.github.rloic.dancinglinks.Origins;
+import com.github.rloic.dancinglinks.PivotPolicy;
+import com.github.rloic.dancinglinks.Trail;
+import com.github.rloic.dancinglinks.XorStatistics;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * XOR equations representation using packed GF(2) bitsets
+ * Each equation is a long[] where the bit v is set if the variable v belongs to the equation. The values of the
+ * variables are stored in two masks (trues and unknowns) shared by all the equations, the true-mask (resp. the
+ * unknown-mask) of an equation is the intersection of its row with the trues (resp. the unknowns).
+ * A xor between two equations is a word-wise xor and nbTrues/nbUnknowns are popcounts.
+ */
+public class BitPackedMatrix implements IDancingLinksMatrix {
+
+   private static final byte UNDEFINED = 0;
+   private static final byte FALSE = -1;
+   private static final byte TRUE = 1;
+
+   private static final int NO_PIVOT = -1;
+   private static final int NO_BASE = -1;
+
+   private final int nbEquations;
+   private final int nbVariables;
+
+   /* Number of words of a row (a bit by variable) */
+   private final int rowLength;
+   /* Number of words of a column (a bit by equation) */
+   private final int columnLength;
+
+   /* variablesOf[equation] is the set of the variables of the equation (removed variables included) */
+   private final long[][] variablesOf;
+   /* equationsOf[variable] is the set of the equations of the variable (removed equations included) */
+   private final long[][] equationsOf;
+
+   private final long[] activeVariables;
+   private final long[] activeEquations;
+
+   private final long[] trues;
+   private final long[] unknowns;
+   private final long[] bases;
+
+   private final byte[] valueOf;
+   private final int[] pivotOf;
+   private final int[] baseOf;
+   private final int[] numberOfEquationsOf;
+
+   private int numberOfUndefinedVariables;
+   private final SparseSet unassignedVars;
+
+   /* The undo log of the modifications (null if they are not recorded) */
+   private Trail trail;
+
+   /* The origins of the equations (null if they are not tracked) */
+   private Origins origins;
+
+   /* The counters of the work done on the matrix (null if it is not counted) */
+   private XorStatistics statistics;
+
+   /* The choice of the new bases (null to choose the candidate that belongs to the fewest equations) */
+   private PivotPolicy pivotPolicy;
+
+   /* The equations modified since they were last polled by each poll method, they are filtered when polled */
+   private final IntQueue modifiedEquations;
+   private final IntQueue modifiedBinaryEquations;
+
+   public BitPackedMatrix(
+         int[][] equations,
+         int nbVariables
+   ) {
+      this.nbEquations = equations.length;
+      this.nbVariables = nbVariables;
+      this.rowLength = wordsFor(nbVariables);
+      this.columnLength = wordsFor(nbEquations);
+      this.numberOfUndefinedVariables = nbVariables;
+
+      variablesOf = new long[nbEquations][rowLength];
+      equationsOf = new long[nbVariables][columnLength];
+      activeVariables = new long[rowLength];
+      activeEquations = new long[columnLength];
+      trues = new long[rowLength];
+      unknowns = new long[rowLength];
+      bases = new long[rowLength];
+
+      valueOf = new byte[nbVariables];
+      pivotOf = new int[nbVariables];
+      Arrays.fill(pivotOf, NO_PIVOT);
+      baseOf = new int[nbEquations];
+      Arrays.fill(baseOf, NO_BASE);
+      numberOfEquationsOf = new int[nbVariables];
+
+      unassignedVars = new SparseSet(nbVariables);
+      modifiedEquations = new IntQueue(nbEquations);
+      modifiedBinaryEquations = new IntQueue(nbEquations);
+      for (int variable = 0; variable < nbVariables; variable++) {
+         unassignedVars.add(variable);
+         setBit(activeVariables, variable);
+         setBit(unknowns, variable);
+      }
+
+      for (int equation = 0; equation < nbEquations; equation++) {
+         setBit(activeEquations, equation);
+         for (int variable : equations[equation]) {
+            setBit(variablesOf[equation], variable);
+            setBit(equationsOf[variable], equation);
+            numberOfEquationsOf[variable] += 1;
+         }
+      }
+   }
+
+   @Override
+   public boolean isUnknown(int equation, int variable) {
+      return valueOf[variable] == UNDEFINED && isActive(equation, variable);
+   }
+
+   @Override
+   public boolean isTrue(int equation, int variable) {
+      return valueOf[variable] == TRUE && isActive(equation, variable);
+   }
+
+   @Override
+   public boolean isTrue(int variable) {
+      return valueOf[variable] == TRUE;
+   }
+
+   @Override
+   public boolean isFalse(int variable) {
+      return valueOf[variable] == FALSE;
+   }
+
+   @Override
+   public void xor(int target, int pivot) {
+      if (trail != null) {
+         trail.xor(target, pivot);
+      }
+      if (origins != null) {
+         origins.xor(target, pivot);
+      }
+      if (statistics != null) {
+         statistics.onXor();
+      }
+      long[] rowT = variablesOf[target];
+      long[] rowP = variablesOf[pivot];
+      for (int word = 0; word < rowLength; word++) {
+         long diff = rowP[word] & activeVariables[word];
+         long common = rowT[word] & diff;
+         long created = diff & ~common;
+         rowT[word] ^= diff;
+         if (statistics != null) {
+            statistics.onFillIn(Long.bitCount(created));
+         }
+
+         while (common != 0) {
+            int variable = (word << 6) + Long.numberOfTrailingZeros(common);
+            clearBit(equationsOf[variable], target);
+            numberOfEquationsOf[variable] -= 1;
+            common &= common - 1;
+         }
+
+         while (created != 0) {
+            int variable = (word << 6) + Long.numberOfTrailingZeros(created);
+            setBit(equationsOf[variable], target);
+            numberOfEquationsOf[variable] += 1;
+            created &= created - 1;
+         }
+      }
+      markModified(target);
+   }
+
+   @Override
+   public void setBase(int pivot, int variable) {
+      if (trail != null) {
+         trail.setBase(pivot, variable);
+      }
+      if (statistics != null) {
+         statistics.onBaseChange();
+      }
+      setBit(bases, variable);
+      pivotOf[variable] = pivot;
+      baseOf[pivot] = variable;
+   }
+
+   @Override
+   public void setOffBase(int variable) {
+      if (trail != null) {
+         trail.setOffBase(pivotOf[variable], variable);
+      }
+      if (statistics != null) {
+         statistics.onBaseChange();
+      }
+      clearBit(bases, variable);
+      baseOf[pivotOf[variable]] = NO_BASE;
+      pivotOf[variable] = NO_PIVOT;
+   }
+
+   @Override
+   public void removeVariable(int variable) {
+      if (trail != null) {
+         trail.removeVariable(variable);
+      }
+      clearBit(activeVariables, variable);
+   }
+
+   @Override
+   public void restoreVariable(int variable) {
+      setBit(activeVariables, variable);
+   }
+
+   @Override
+   public void removeEquation(int equation) {
+      if (trail != null) {
+         trail.removeEquation(equation);
+      }
+      clearBit(activeEquations, equation);
+   }
+
+   @Override
+   public void restoreEquation(int equation) {
+      setBit(activeEquations, equation);
+      markModified(equation);
+   }
+
+   @Override
+   public int nbTrues(int equation) {
+      return popCount(variablesOf[equation], trues);
+   }
+
+   @Override
+   public int nbUnknowns(int equation) {
+      return popCount(variablesOf[equation], unknowns);
+   }
+
+   @Override
+   public boolean isValid(int equation) {
+      return nbUnknowns(equation) != 0 || nbTrues(equation) != 1;
+   }
+
+   @Override
+   public boolean isInvalid(int equation) {
+      return !isValid(equation);
+   }
+
+   @Override
+   public boolean isEmpty(int equation) {
+      long[] row = variablesOf[equation];
+      for (int word = 0; word < rowLength; word++) {
+         if ((row[word] & (trues[word] | unknowns[word])) != 0) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   @Override
+   public boolean isBase(int variable) {
+      return getBit(bases, variable);
+   }
+
+   @Override
+   public boolean isUnused(int variable) {
+      if (valueOf[variable] == FALSE) return true;
+      long[] column = equationsOf[variable];
+      for (int word = 0; word < columnLength; word++) {
+         if ((column[word] & activeEquations[word]) != 0) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   @Override
+   public void forEachEquationOf(int variable, IntConsumer action) {
+      forEachBit(equationsOf[variable], activeEquations, columnLength, action);
+   }
+
+   @Override
+   public int findEquationOf(int variable, IntPredicate predicate) {
+      long[] column = equationsOf[variable];
+      for (int word = 0; word < columnLength; word++) {
+         long active = column[word] & activeEquations[word];
+         while (active != 0) {
+            int equation = (word << 6) + Long.numberOfTrailingZeros(active);
+            if (predicate.test(equation)) {
+               return equation;
+            }
+            active &= active - 1;
+         }
+      }
+      return -1;
+   }
+
+   @Override
+   public int pivotOf(int variable) {
+      return pivotOf[variable];
+   }
+
+   @Override
+   public void set(int variable, boolean value) {
+      if (trail != null) {
+         trail.set(variable);
+      }
+      unassignedVars.remove(variable);
+      numberOfUndefinedVariables -= 1;
+      valueOf[variable] = value ? TRUE : FALSE;
+      clearBit(unknowns, variable);
+      if (value) {
+         setBit(trues, variable);
+      }
+      markEquationsOf(variable);
+   }
+
+   @Override
+   public void unSet(int variable) {
+      unassignedVars.add(variable);
+      numberOfUndefinedVariables += 1;
+      valueOf[variable] = UNDEFINED;
+      clearBit(trues, variable);
+      setBit(unknowns, variable);
+      markEquationsOf(variable);
+   }
+
+   @Override
+   public boolean isUndefined(int variable) {
+      return valueOf[variable] == UNDEFINED;
+   }
+
+   @Override
+   public int eligibleBase(int pivot) {
+      if (pivotPolicy != null) {
+         return pivotPolicy.choose(this, pivot);
+      }
+      return fewestEquationsBase(pivot);
+   }
+
+   /* The candidate of the pivot that belongs to the fewest equations */
+   private int fewestEquationsBase(int pivot) {
+      int bestNbXor = Integer.MAX_VALUE;
+      int eligibleBase = -1;
+      long[] row = variablesOf[pivot];
+      for (int word = 0; word < rowLength; word++) {
+         long candidates = row[word] & activeVariables[word] & ~bases[word] & (trues[word] | unknowns[word]);
+         while (candidates != 0) {
+            int variable = (word << 6) + Long.numberOfTrailingZeros(candidates);
+            if (numberOfEquationsOf[variable] < bestNbXor) {
+               bestNbXor = numberOfEquationsOf[variable];
+               eligibleBase = variable;
+            }
+            candidates &= candidates - 1;
+         }
+      }
+      return eligibleBase;
+   }
+
+   @Override
+   public int firstUnknown(int equation) {
+      long[] row = variablesOf[equation];
+      for (int word = 0; word < rowLength; word++) {
+         long candidates = row[word] & activeVariables[word] & unknowns[word];
+         if (candidates != 0) {
+            return (word << 6) + Long.numberOfTrailingZeros(candidates);
+         }
+      }
+      return -1;
+   }
+
+   @Override
+   public int nbEquations() {
+      return nbEquations;
+   }
+
+   @Override
+   public int nbVariables() {
+      return nbVariables;
+   }
+
+   @Override
+   public void forEachVariableOf(int equation, IntConsumer action) {
+      forEachBit(variablesOf[equation], activeVariables, rowLength, action);
+   }
+
+   @Override
+   public boolean sameOffBaseVariables(int eq1, int eq2) {
+      long[] row1 = variablesOf[eq1];
+      long[] row2 = variablesOf[eq2];
+      for (int word = 0; word < rowLength; word++) {
+         if (((row1[word] ^ row2[word]) & activeVariables[word] & ~bases[word]) != 0) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   @Override
+   public int baseVariableOf(int equation) {
+      return baseOf[equation];
+   }
+
+   @Override
+   public void forEachActiveEquation(IntConsumer action) {
+      forEachBit(activeEquations, activeEquations, columnLength, action);
+   }
+
+   @Override
+   public int pollUnitEquation() {
+      for (int equation = modifiedEquations.poll(); equation != IntQueue.EMPTY; equation = modifiedEquations.poll()) {
+         if (getBit(activeEquations, equation) && nbUnknowns(equation) == 1) {
+            return equation;
+         }
+      }
+      return -1;
+   }
+
+   @Override
+   public void queueUnitEquations() {
+      forEachUnitEquation(modifiedEquations::add);
+   }
+
+   @Override
+   public int pollBinaryEquation() {
+      for (
+            int equation = modifiedBinaryEquations.poll();
+            equation != IntQueue.EMPTY;
+            equation = modifiedBinaryEquations.poll()
+      ) {
+         if (getBit(activeEquations, equation) && nbUnknowns(equation) == 2 && nbTrues(equation) == 0) {
+            return equation;
+         }
+      }
+      return -1;
+   }
+
+   private void markModified(int equation) {
+      modifiedEquations.add(equation);
+      modifiedBinaryEquations.add(equation);
+   }
+
+   /* Queue the active equations of the variable */
+   private void markEquationsOf(int variable) {
+      long[] column = equationsOf[variable];
+      for (int word = 0; word < columnLength; word++) {
+         long active = column[word] & activeEquations[word];
+         while (active != 0) {
+            markModified((word << 6) + Long.numberOfTrailingZeros(active));
+            active &= active - 1;
+         }
+      }
+   }
+
+   @Override
+   public int numberOfUndefinedVariables() {
+      return numberOfUndefinedVariables;
+   }
+
+   @Override
+   public int numberOfEquationsOf(int variable) {
+      return numberOfEquationsOf[variable];
+   }
+
+   @Override
+   public int firstOffBase(int pivot) {
+      return fewestEquationsBase(pivot);
+   }
+
+   @Override
+   public SparseSet unassignedVars() {
+      return unassignedVars;
+   }
+
+   @Override
+   public void setTrail(Trail trail) {
+      this.trail = trail;
+   }
+
+   @Override
+   public void setOrigins(Origins origins) {
+      this.origins = origins;
+   }
+
+   @Override
+   public void setStatistics(XorStatistics statistics) {
+      this.statistics = statistics;
+   }
+
+   @Override
+   public void setPivotPolicy(PivotPolicy policy) {
+      this.pivotPolicy = policy;
+   }
+
+   @Override
+   public MatrixState snapshot() {
+      int[][] rows = new int[nbEquations][];
+      boolean[] isActiveEquation = new boolean[nbEquations];
+      for (int equation = 0; equation < nbEquations; equation++) {
+         long[] row = variablesOf[equation];
+         int[] variables = new int[popCount(row)];
+         int i = 0;
+         for (int word = 0; word < rowLength; word++) {
+            long bits = row[word];
+            while (bits != 0) {
+               variables[i++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+               bits &= bits - 1;
+            }
+         }
+         rows[equation] = variables;
+         isActiveEquation[equation] = getBit(activeEquations, equation);
+      }
+      boolean[] isActiveVariable = new boolean[nbVariables];
+      for (int variable = 0; variable < nbVariables; variable++) {
+         isActiveVariable[variable] = getBit(activeVariables, variable);
+      }
+      return new MatrixState(nbVariables, rows, isActiveEquation, isActiveVariable, baseOf.clone(), valueOf.clone());
+   }
+
+   @Override
+   public void restoreFrom(MatrixState state) {
+      if (state.nbEquations() != nbEquations || state.nbVariables() != nbVariables) {
+         throw new IllegalArgumentException("The state doesn't have the dimensions of the matrix");
+      }
+      modifiedEquations.clear();
+      modifiedBinaryEquations.clear();
+      for (long[] column : equationsOf) {
+         Arrays.fill(column, 0L);
+      }
+      Arrays.fill(numberOfEquationsOf, 0);
+      Arrays.fill(activeEquations, 0L);
+      for (int equation = 0; equation < nbEquations; equation++) {
+         Arrays.fill(variablesOf[equation], 0L);
+         for (int variable : state.variablesOf(equation)) {
+            setBit(variablesOf[equation], variable);
+            setBit(equationsOf[variable], equation);
+            numberOfEquationsOf[variable] += 1;
+         }
+         if (state.isActiveEquation(equation)) {
+            setBit(activeEquations, equation);
+         }
+      }
+
+      Arrays.fill(activeVariables, 0L);
+      Arrays.fill(trues, 0L);
+      Arrays.fill(unknowns, 0L);
+      unassignedVars.clear();
+      numberOfUndefinedVariables = 0;
+      for (int variable = 0; variable < nbVariables; variable++) {
+         if (state.isActiveVariable(variable)) {
+            setBit(activeVariables, variable);
+         }
+         valueOf[variable] = state.valueOf(variable);
+         if (valueOf[variable] == UNDEFINED) {
+            unassignedVars.add(variable);
+            numberOfUndefinedVariables += 1;
+            setBit(unknowns, variable);
+         } else if (valueOf[variable] == TRUE) {
+            setBit(trues, variable);
+         }
+      }
+
+      Arrays.fill(bases, 0L);
+      Arrays.fill(pivotOf, NO_PIVOT);
+      for (int equation = 0; equation < nbEquations; equation++) {
+         baseOf[equation] = state.baseVariableOf(equation);
+         if (baseOf[equation] != NO_BASE) {
+            setBit(bases, baseOf[equation]);
+            pivotOf[baseOf[equation]] = equation;
+         }
+      }
+   }
+
+   @Override
+   public String toString() {
+      StringBuilder str = new StringBuilder("    ");
+      for (int variable = 0; variable < nbVariables; variable++) {
+         str.append(getBit(activeVariables, variable) ? " * " : "   ");
+      }
+      str.append('\n');
+      for (int equation = 0; equation < nbEquations; equation++) {
+         str.append(getBit(activeEquations, equation) ? "[*] " : "[ ] ");
+         for (int variable = 0; variable < nbVariables; variable++) {
+            if (isActive(equation, variable)) {
+               str.append(debugAndTrim(valueOf[variable], isBase(variable)));
+            } else {
+               str.append("___");
+            }
+         }
+         str
+               .append(" | nbUnknowns: ")
+               .append(nbUnknowns(equation))
+               .append(" | nbTrues: ")
+               .append(nbTrues(equation))
+               .append('\n');
+      }
+      return str.toString();
+   }
+
+   private String debugAndTrim(byte value, boolean base) {
+      String repr;
+      if (value == TRUE) {
+         repr = "1";
+      } else if (value == FALSE) {
+         repr = "0";
+      } else {
+         repr = "x";
+      }
+      return base ? "(" + repr + ")" : " " + repr + " ";
+   }
+
+   private boolean isActive(int equation, int variable) {
+      return getBit(variablesOf[equation], variable)
+            && getBit(activeVariables, variable)
+            && getBit(activeEquations, equation);
+   }
+
+   private int popCount(long[] row) {
+      int count = 0;
+      for (long word : row) {
+         count += Long.bitCount(word);
+      }
+      return count;
+   }
+
+   private int popCount(long[] row, long[] mask) {
+      int count = 0;
+      for (int word = 0; word < rowLength; word++) {
+         count += Long.bitCount(row[word] & mask[word]);
+      }
+      return count;
+   }
+
+   private static void forEachBit(long[] bits, long[] mask, int length, IntConsumer action) {
+      for (int word = 0; word < length; word++) {
+         long active = bits[word] & mask[word];
+         while (active != 0) {
+            action.accept((word << 6) + Long.numberOfTrailingZeros(active));
+            active &= active - 1;
+         }
+      }
+   }
+
+   private static int wordsFor(int nbBits) {
+      return (nbBits + 63) >>> 6;
+   }
+
+   private static boolean getBit(long[] bits, int index) {
+      return (bits[index >>> 6] & (1L << index)) != 0;
+   }
+
+   private static void setBit(long[] bits, int index) {
+      bits[index >>> 6] |= 1L << index;
+   }
+
+   private static void clearBit(long[] bits, int index) {
+      bits[index >>> 6] &= ~(1L << index);
+   }
+}
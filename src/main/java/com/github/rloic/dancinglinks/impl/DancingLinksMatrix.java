@@ -1,19 +1,25 @@
 package com.github.rloic.dancinglinks.impl;
 
+import com.github.rloic.common.collections.IntQueue;
+import com.github.rloic.common.collections.SparseSet;
 import com.github.rloic.dancinglinks.IDancingLinksMatrix;
-import com.github.rloic.dancinglinks.cell.*;
-import com.github.rloic.paper.dancinglinks.cell.*;
+import com.github.rloic.dancinglinks.MatrixState;
+import com.github.rloic.dancinglinks.Origins;
+import com.github.rloic.dancinglinks.PivotPolicy;
+import com.github.rloic.dancinglinks.Trail;
+import com.github.rloic.dancinglinks.XorStatistics;
+import com.github.rloic.dancinglinks.cell.CellArena;
+import com.github.rloic.dancinglinks.cell.ColumnIndex;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
-import it.unimi.dsi.fastutil.ints.IntArraySet;
-import it.unimi.dsi.fastutil.ints.IntList;
-import it.unimi.dsi.fastutil.ints.IntSet;
 
 import java.util.Arrays;
-import java.util.function.Predicate;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 
 /**
  * XOR equations representation using the DancingLinks structure
  * Knuth, Donald E. ‘Dancing Links’. ArXiv:Cs/0011047, 14 November 2000. http://arxiv.org/abs/cs/0011047.
+ * The cells are stored in a {@link CellArena} (struct of arrays) and are addressed by their index.
  */
 public class DancingLinksMatrix implements IDancingLinksMatrix {
 
@@ -21,10 +27,8 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
    private static byte FALSE = -1;
    private static byte TRUE = 1;
 
-   private final Root root;
-   private final Row[] variablesOf;
-   private final Column[] equationsOf;
-   private final Data[][] cells;
+   private CellArena arena;
+   private ColumnIndex cells;
 
    private final boolean[] isBase;
    private final int[] pivotOf;
@@ -34,6 +38,14 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
    private final int[] nbUnknowns;
    private final int[] nbTrues;
 
+   /* The active equations with exactly one unknown */
+   private final SparseSet unitEquations;
+   private final int[] unitBuffer;
+   /* The equations that have become unit (or that have been modified while unit) since they were last polled */
+   private final IntQueue unitQueue;
+   /* The equations that have been modified and left with two unknowns since they were last polled */
+   private final IntQueue binaryQueue;
+
    private final int nbEquations;
    private final int nbVariables;
 
@@ -42,8 +54,35 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
 
    private static final int NO_PIVOT = -1;
    private static final int NO_BASE = -1;
+   private static final int NONE = -1;
+
+   private final SparseSet unassignedVars;
+
+   /*
+    * The signature of an equation is the xor of the Zobrist keys of its off-base variables, it is updated by the xors
+    * (the signature of the sum is the xor of the signatures), the base changes and the removals of variables
+    */
+   private final long[] keyOf;
+   private final long[] signatureOf;
+
+   /* The hash index of the equations by signature: a chain of equations by bucket (the removed equations included) */
+   private final int[] bucketHeads;
+   private final int[] bucketOf;
+   private final int[] nextInBucket;
+   private final int[] previousInBucket;
+   private final int[] sameOffBase;
+
+   /* The undo log of the modifications (null if they are not recorded) */
+   private Trail trail;
 
-   private final IntSet unassignedVars;
+   /* The origins of the equations (null if they are not tracked) */
+   private Origins origins;
+
+   /* The counters of the work done on the matrix (null if it is not counted) */
+   private XorStatistics statistics;
+
+   /* The choice of the new bases (null to choose the candidate that belongs to the fewest equations) */
+   private PivotPolicy pivotPolicy;
 
    public DancingLinksMatrix(
          int[][] equations,
@@ -51,41 +90,56 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
    ) {
       this.nbEquations = equations.length;
       this.nbVariables = nbVariables;
-      this.numberOfUndefinedVariables = nbVariables;
       this.numberOfEquationsOf = new int[nbVariables];
       valueOf = new byte[nbVariables];
-      root = new Root();
-      variablesOf = new Row[nbEquations];
-      if (nbEquations > 0) {
-         variablesOf[0] = new Row(root);
-         for (int equation = 1; equation < nbEquations; equation++) {
-            variablesOf[equation] = new Row(variablesOf[equation - 1]);
-         }
+      unassignedVars = new SparseSet(nbVariables);
+      isBase = new boolean[nbVariables];
+      pivotOf = new int[nbVariables];
+      baseOf = new int[nbEquations];
+      nbUnknowns = new int[nbEquations];
+      nbTrues = new int[nbEquations];
+      unitEquations = new SparseSet(nbEquations);
+      unitQueue = new IntQueue(nbEquations);
+      binaryQueue = new IntQueue(nbEquations);
+      unitBuffer = new int[nbEquations];
+      keyOf = new long[nbVariables];
+      for (int variable = 0; variable < nbVariables; variable++) {
+         keyOf[variable] = zobristKey(variable);
+      }
+      signatureOf = new long[nbEquations];
+      bucketHeads = new int[Integer.highestOneBit(Math.max(1, nbEquations)) << 1];
+      bucketOf = new int[nbEquations];
+      nextInBucket = new int[nbEquations];
+      previousInBucket = new int[nbEquations];
+      sameOffBase = new int[nbEquations];
+      build(equations);
+   }
+
+   /* (Re)build the structure for the given equations, all the variables are undefined and there is no base */
+   private void build(int[][] equations) {
+      int nbCells = 0;
+      for (int[] equation : equations) {
+         nbCells += equation.length;
       }
-      assert variablesOf[nbEquations - 1].bottom() == root;
+      arena = new CellArena(nbEquations, nbVariables, 2 * nbCells);
+      cells = new ColumnIndex(nbVariables);
 
-      unassignedVars = new IntArraySet(nbVariables);
+      numberOfUndefinedVariables = nbVariables;
+      unassignedVars.clear();
       for (int j = 0; j < nbVariables; j++) {
          unassignedVars.add(j);
       }
-      equationsOf = new Column[nbVariables];
-      if (nbVariables > 0) {
-         equationsOf[0] = new Column(root);
-         for (int variable = 1; variable < nbVariables; variable++) {
-            equationsOf[variable] = new Column(equationsOf[variable - 1]);
-         }
-      }
-      assert equationsOf[nbVariables - 1].right() == root;
-
-      isBase = new boolean[nbVariables];
-      pivotOf = new int[nbVariables];
+      Arrays.fill(valueOf, UNDEFINED);
+      Arrays.fill(isBase, false);
       Arrays.fill(pivotOf, NO_PIVOT);
-      baseOf = new int[equations.length];
       Arrays.fill(baseOf, NO_BASE);
-      nbUnknowns = new int[nbEquations];
-      nbTrues = new int[nbEquations];
+      Arrays.fill(numberOfEquationsOf, 0);
+      Arrays.fill(nbTrues, 0);
+      unitEquations.clear();
+      unitQueue.clear();
+      binaryQueue.clear();
+      Arrays.fill(bucketHeads, NONE);
 
-      cells = new Data[nbEquations][nbVariables];
       for (int i = 0; i < equations.length; i++) {
          nbUnknowns[i] = equations[i].length;
          Arrays.sort(equations[i]);
@@ -93,45 +147,32 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
          for (int variable : equation) {
             numberOfEquationsOf[variable] += 1;
 
-            Cell lastEquationOfVariable = equationsOf[variable].top();
-            Cell lastVariableOfEquation = variablesOf[i].left();
-            if (
-                  lastVariableOfEquation instanceof Row
-                        && lastEquationOfVariable instanceof Column
-            ) {
-               cells[i][variable] = new Data(i, variable, (Row) lastVariableOfEquation, (Column) lastEquationOfVariable);
-            } else if (
-                  lastVariableOfEquation instanceof Data
-                        && lastEquationOfVariable instanceof Column
-            ) {
-               cells[i][variable] = new Data(i, variable, (Data) lastVariableOfEquation, (Column) lastEquationOfVariable);
-            } else if (
-                  lastVariableOfEquation instanceof Row
-                        && lastEquationOfVariable instanceof Data
-            ) {
-               cells[i][variable] = new Data(i, variable, (Row) lastVariableOfEquation, (Data) lastEquationOfVariable);
-            } else if (
-                  lastVariableOfEquation instanceof Data
-                        && lastEquationOfVariable instanceof Data
-            ) {
-               cells[i][variable] = new Data(i, variable, (Data) lastVariableOfEquation, (Data) lastEquationOfVariable);
-            } else {
-               throw new RuntimeException();
-            }
+            int lastEquationOfVariable = arena.top(arena.columnHeader(variable));
+            int lastVariableOfEquation = arena.left(arena.rowHeader(i));
+            int cell = arena.newCell(i, variable, lastVariableOfEquation, lastEquationOfVariable);
+            cells.add(variable, i, cell);
          }
+         updateUnit(i);
+         signatureOf[i] = computeSignature(i);
+         index(i);
       }
    }
 
    @Override
    public boolean isUnknown(int equation, int variable) {
       return valueOf[variable] == UNDEFINED
-            && get(equation, variable).isActive();
+            && isActive(equation, variable);
    }
 
    @Override
    public boolean isTrue(int equation, int variable) {
       return valueOf[variable] == TRUE
-            && get(equation, variable).isActive();
+            && isActive(equation, variable);
+   }
+
+   private boolean isActive(int equation, int variable) {
+      int cell = cells.find(equation, variable);
+      return cell != CellArena.NONE && arena.isActive(cell);
    }
 
    @Override
@@ -146,6 +187,15 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
 
    @Override
    public void setBase(int pivot, int variable) {
+      if (trail != null) {
+         trail.setBase(pivot, variable);
+      }
+      if (statistics != null) {
+         statistics.onBaseChange();
+      }
+      if (!isBase[variable]) {
+         toggleInEquationsOf(variable);
+      }
       isBase[variable] = true;
       pivotOf[variable] = pivot;
       baseOf[pivot] = variable;
@@ -153,6 +203,15 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
 
    @Override
    public void setOffBase(int variable) {
+      if (trail != null) {
+         trail.setOffBase(pivotOf[variable], variable);
+      }
+      if (statistics != null) {
+         statistics.onBaseChange();
+      }
+      if (isBase[variable]) {
+         toggleInEquationsOf(variable);
+      }
       isBase[variable] = false;
       baseOf[pivotOf[variable]] = NO_BASE;
       pivotOf[variable] = NO_PIVOT;
@@ -190,125 +249,168 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
 
    @Override
    public boolean isUnused(int variable) {
-      return equationsOf[variable].bottom() == equationsOf[variable] || valueOf[variable] == FALSE;
+      int header = arena.columnHeader(variable);
+      return arena.bottom(header) == header || valueOf[variable] == FALSE;
    }
 
    @Override
-   public Iterable<Integer> equationsOf(int variable) {
-      IntList equations = new IntArrayList(nbEquations);
-      for (Data data : equationsOf[variable]) {
-         equations.add(data.equation);
+   public void forEachEquationOf(int variable, IntConsumer action) {
+      for (int cell = arena.bottom(arena.columnHeader(variable)); arena.isData(cell); cell = arena.bottom(cell)) {
+         action.accept(arena.equation(cell));
       }
-      return equations;
    }
 
-   private Data get(int equation, int variable) {
-      if (cells[equation][variable] == null) {
-         cells[equation][variable] = new Data(equation, variable);
+   @Override
+   public int findEquationOf(int variable, IntPredicate predicate) {
+      for (int cell = arena.bottom(arena.columnHeader(variable)); arena.isData(cell); cell = arena.bottom(cell)) {
+         int equation = arena.equation(cell);
+         if (predicate.test(equation)) {
+            return equation;
+         }
       }
-      return cells[equation][variable];
+      return -1;
    }
 
    @Override
    public void removeEquation(int equation) {
-      variablesOf[equation].remove();
+      if (trail != null) {
+         trail.removeEquation(equation);
+      }
+      arena.removeRow(equation);
+      updateUnit(equation);
    }
 
    @Override
    public void restoreEquation(int equation) {
-      variablesOf[equation].restore();
+      arena.restoreRow(equation);
+      updateUnit(equation);
+      // The signature is not updated while the equation is removed
+      setSignature(equation, computeSignature(equation));
    }
 
    @Override
    public void removeVariable(int variable) {
-      equationsOf[variable].remove();
+      if (trail != null) {
+         trail.removeVariable(variable);
+      }
+      if (!isBase[variable]) {
+         toggleInEquationsOf(variable);
+      }
+      arena.removeColumn(variable);
    }
 
    @Override
    public void restoreVariable(int variable) {
-      equationsOf[variable].restore();
+      arena.restoreColumn(variable);
+      if (!isBase[variable]) {
+         toggleInEquationsOf(variable);
+      }
    }
 
    @Override
    public void xor(int target, int pivot) {
-      Cell cellT = variablesOf[target].right();
-      Cell cellP = variablesOf[pivot].right();
-
-      while (cellT instanceof Data && cellP instanceof Data) {
-         Data dataT = (Data) cellT;
-         Data dataP = (Data) cellP;
-
-         if (dataT.isOnTheRightOf(dataP)) {
-            int variable = dataP.variable;
-            Data newUnknown = get(target, variable);
-            Cell top = findLastInColumn(variable, it -> it.isAboveOf(newUnknown));
-            Cell left = cellT.left();
-            newUnknown.relink(left, top);
-
-            numberOfEquationsOf[newUnknown.variable] += 1;
-
-            if (isTrue(variable)) {
-               nbTrues[target] += 1;
-            } else if (isUndefined(variable)) {
-               nbUnknowns[target] += 1;
-            }
-
-            cellP = cellP.right();
-         } else if (dataP.isOnTheRightOf(dataT)) {
-            cellT = cellT.right();
+      if (trail != null) {
+         trail.xor(target, pivot);
+      }
+      if (origins != null) {
+         origins.xor(target, pivot);
+      }
+      if (statistics != null) {
+         statistics.onXor();
+      }
+      int headerT = arena.rowHeader(target);
+      int headerP = arena.rowHeader(pivot);
+      int cellT = arena.right(headerT);
+      int cellP = arena.right(headerP);
+
+      while (arena.isData(cellT) && arena.isData(cellP)) {
+         int variableT = arena.variable(cellT);
+         int variableP = arena.variable(cellP);
+
+         if (variableT > variableP) {
+            insert(target, variableP, arena.left(cellT));
+            cellP = arena.right(cellP);
+         } else if (variableP > variableT) {
+            cellT = arena.right(cellT);
          } else {
-            int variable = dataT.variable;
-            if (isTrue(variable)) {
+            if (isTrue(variableT)) {
                nbTrues[target] -= 1;
-            } else if (isUndefined(variable)) {
+            } else if (isUndefined(variableT)) {
                nbUnknowns[target] -= 1;
             }
 
-            numberOfEquationsOf[dataT.variable] -= 1;
+            numberOfEquationsOf[variableT] -= 1;
 
-            dataT.remove();
-            cellT = cellT.right();
-            cellP = cellP.right();
+            arena.remove(cellT);
+            cellT = arena.right(cellT);
+            cellP = arena.right(cellP);
          }
       }
 
-      Row headerP = variablesOf[pivot];
-      Row headerT = variablesOf[target];
       while (cellP != headerP) {
-         int variable = ((Data) cellP).variable;
-         Data newUnknown = get(target, variable);
-         Cell top = findLastInColumn(variable, it -> it.isAboveOf(newUnknown));
-         Cell left = headerT.left();
-         newUnknown.relink(left, top);
-
-         numberOfEquationsOf[newUnknown.variable] += 1;
-
-         if (isTrue(variable)) {
-            nbTrues[target] += 1;
-         } else if (isUndefined(variable)) {
-            nbUnknowns[target] += 1;
-         }
+         insert(target, arena.variable(cellP), arena.left(headerT));
+         cellP = arena.right(cellP);
+      }
 
-         cellP = cellP.right();
+      updateUnit(target);
+      setSignature(target, signatureOf[target] ^ signatureOf[pivot]);
+   }
+
+   private void insert(int target, int variable, int left) {
+      int position = cells.positionOf(variable, target);
+      int newUnknown;
+      if (cells.isAt(variable, position, target)) {
+         newUnknown = cells.cellAt(variable, position);
+      } else {
+         newUnknown = arena.newCell(target, variable);
+         cells.insertAt(variable, position, target, newUnknown);
       }
+      arena.relink(newUnknown, left, lastLinkedAbove(variable, position));
 
+      numberOfEquationsOf[variable] += 1;
+      if (statistics != null) {
+         statistics.onFillIn(1);
+      }
+
+      if (isTrue(variable)) {
+         nbTrues[target] += 1;
+      } else if (isUndefined(variable)) {
+         nbUnknowns[target] += 1;
+      }
    }
 
-   private Cell findLastInColumn(int y, Predicate<Data> predicate) {
-      Cell header = equationsOf[y];
-      Cell cell = header.top();
-      while (cell instanceof Data && !predicate.test((Data) cell)) {
-         cell = cell.top();
+   /*
+    * Return the last cell of the column that is linked and above the given position (the header if none)
+    * The index is walked from the position in both directions at once: the first linked cell above is the answer and
+    * the top of the first linked cell below is the answer too, so the walk stops at the nearest linked cell. The
+    * cell at the position is the one being inserted, it is skipped.
+    */
+   private int lastLinkedAbove(int variable, int position) {
+      int size = cells.size(variable);
+      for (int above = position - 1, below = position + 1; ; above--, below++) {
+         if (below >= size) {
+            return arena.top(arena.columnHeader(variable));
+         }
+         int cell = cells.cellAt(variable, below);
+         if (arena.isLinkedInColumn(cell)) {
+            return arena.top(cell);
+         }
+         if (above < 0) {
+            return arena.columnHeader(variable);
+         }
+         cell = cells.cellAt(variable, above);
+         if (arena.isLinkedInColumn(cell)) {
+            return cell;
+         }
       }
-      return cell;
    }
 
    @Override
    public String toString() {
       StringBuilder str = new StringBuilder("    ");
-      for (int j = 0; j < equationsOf.length; j++) {
-         if (equationsOf[j].isActive()) {
-            if (equationsOf[j].isSeed()) {
+      for (int j = 0; j < nbVariables; j++) {
+         if (arena.isColumnActive(j)) {
+            if (arena.isColumnSeed(j)) {
                str.append(" s ");
             } else {
                str.append(" * ");
@@ -318,9 +420,9 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
          }
       }
       str.append('\n');
-      for (int i = 0; i < variablesOf.length; i++) {
-         if (variablesOf[i].isActive()) {
-            if (variablesOf[i].isSeed()) {
+      for (int i = 0; i < nbEquations; i++) {
+         if (arena.isRowActive(i)) {
+            if (arena.isRowSeed(i)) {
                str.append("[s] ");
             } else {
                str.append("[*] ");
@@ -328,9 +430,9 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
          } else {
             str.append("[ ] ");
          }
-         for (int j = 0; j < equationsOf.length; j++) {
-            if (cells[i][j] != null && cells[i][j].isActive()) {
-               byte value = valueOf[cells[i][j].variable];
+         for (int j = 0; j < nbVariables; j++) {
+            if (isActive(i, j)) {
+               byte value = valueOf[j];
                str.append(debugAndTrim(value, isBase[j]));
             } else {
                str.append("___");
@@ -392,13 +494,18 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
 
    @Override
    public void set(int variable, boolean value) {
+      if (trail != null) {
+         trail.set(variable);
+      }
       unassignedVars.remove(variable);
       numberOfUndefinedVariables -= 1;
       valueOf[variable] = value ? TRUE : FALSE;
       int incNbTrue = value ? 1 : 0;
-      for (int equation : equationsOf(variable)) {
+      for (int cell = arena.bottom(arena.columnHeader(variable)); arena.isData(cell); cell = arena.bottom(cell)) {
+         int equation = arena.equation(cell);
          nbUnknowns[equation] -= 1;
          nbTrues[equation] += incNbTrue;
+         updateUnit(equation);
       }
    }
 
@@ -407,9 +514,11 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
       unassignedVars.add(variable);
       numberOfUndefinedVariables += 1;
       int decNbTrue = valueOf[variable] == TRUE ? 1 : 0;
-      for (int equation : equationsOf(variable)) {
+      for (int cell = arena.bottom(arena.columnHeader(variable)); arena.isData(cell); cell = arena.bottom(cell)) {
+         int equation = arena.equation(cell);
          nbUnknowns[equation] += 1;
          nbTrues[equation] -= decNbTrue;
+         updateUnit(equation);
       }
       valueOf[variable] = UNDEFINED;
    }
@@ -421,14 +530,23 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
 
    @Override
    public int eligibleBase(int pivot) {
+      if (pivotPolicy != null) {
+         return pivotPolicy.choose(this, pivot);
+      }
+      return fewestEquationsBase(pivot);
+   }
+
+   /* The candidate of the pivot that belongs to the fewest equations */
+   private int fewestEquationsBase(int pivot) {
       int bestNbXor = Integer.MAX_VALUE;
       int eligibleBase = -1;
-      for (Data it : variablesOf[pivot]) {
-         byte value = valueOf[it.variable];
-         int nbEquationsOfVar = numberOfEquationsOf[it.variable];
-         if ((value == TRUE || value == UNDEFINED) && !isBase[it.variable] & nbEquationsOfVar < bestNbXor) {
+      for (int cell = arena.right(arena.rowHeader(pivot)); arena.isData(cell); cell = arena.right(cell)) {
+         int variable = arena.variable(cell);
+         byte value = valueOf[variable];
+         int nbEquationsOfVar = numberOfEquationsOf[variable];
+         if ((value == TRUE || value == UNDEFINED) && !isBase[variable] & nbEquationsOfVar < bestNbXor) {
             bestNbXor = nbEquationsOfVar;
-            eligibleBase = it.variable;
+            eligibleBase = variable;
          }
       }
       return eligibleBase;
@@ -436,10 +554,10 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
 
    @Override
    public int firstUnknown(int equation) {
-      for (Data it : variablesOf[equation]) {
-         byte value = valueOf[it.variable];
-         if (value == UNDEFINED) {
-            return it.variable;
+      for (int cell = arena.right(arena.rowHeader(equation)); arena.isData(cell); cell = arena.right(cell)) {
+         int variable = arena.variable(cell);
+         if (valueOf[variable] == UNDEFINED) {
+            return variable;
          }
       }
       return -1;
@@ -456,53 +574,136 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
    }
 
    @Override
-   public Iterable<Integer> variablesOf(int equation) {
-      IntList variables = new IntArrayList(nbVariables);
-      for (Data data : variablesOf[equation]) {
-         variables.add(data.variable);
+   public void forEachVariableOf(int equation, IntConsumer action) {
+      for (int cell = arena.right(arena.rowHeader(equation)); arena.isData(cell); cell = arena.right(cell)) {
+         action.accept(arena.variable(cell));
       }
-      return variables;
    }
 
    @Override
-   public boolean sameOffBaseVariables(int eq1, int eq2) {
-      return sameOffBaseVariables(variablesOf[eq1], variablesOf[eq2]);
+   public void forEachSameOffBase(int equation, IntConsumer action) {
+      // The equations are visited in increasing order (as in a column), whatever their order in the bucket
+      int nbSame = 0;
+      long signature = signatureOf[equation];
+      for (int other = bucketHeads[bucketOf[equation]]; other != NONE; other = nextInBucket[other]) {
+         if (other != equation && signatureOf[other] == signature && arena.isRowActive(other)
+               && sameOffBaseVariables(equation, other)) {
+            sameOffBase[nbSame++] = other;
+         }
+      }
+      Arrays.sort(sameOffBase, 0, nbSame);
+      for (int i = 0; i < nbSame; i++) {
+         action.accept(sameOffBase[i]);
+      }
+   }
+
+   @Override
+   public int findSameOffBase(int equation, IntPredicate predicate) {
+      long signature = signatureOf[equation];
+      for (int other = bucketHeads[bucketOf[equation]]; other != NONE; other = nextInBucket[other]) {
+         if (other != equation && signatureOf[other] == signature && arena.isRowActive(other)
+               && sameOffBaseVariables(equation, other) && predicate.test(other)) {
+            return other;
+         }
+      }
+      return -1;
    }
 
-   private boolean sameOffBaseVariables(Row eq1, Row eq2) {
-      Cell cVarEq1 = eq1.right();
-      Cell cVarEq2 = eq2.right();
+   /* Toggle the key of the variable in the signatures of its active equations (it enters or leaves the off-base part) */
+   private void toggleInEquationsOf(int variable) {
+      long key = keyOf[variable];
+      for (int cell = arena.bottom(arena.columnHeader(variable)); arena.isData(cell); cell = arena.bottom(cell)) {
+         int equation = arena.equation(cell);
+         setSignature(equation, signatureOf[equation] ^ key);
+      }
+   }
 
-      while (cVarEq1 instanceof Data && cVarEq2 instanceof Data) {
-         Data varEq1 = (Data) cVarEq1;
-         Data varEq2 = (Data) cVarEq2;
+   private long computeSignature(int equation) {
+      long signature = 0L;
+      for (int cell = arena.right(arena.rowHeader(equation)); arena.isData(cell); cell = arena.right(cell)) {
+         int variable = arena.variable(cell);
+         if (!isBase[variable]) {
+            signature ^= keyOf[variable];
+         }
+      }
+      return signature;
+   }
 
-         if (isBase[varEq1.variable] || isBase[varEq2.variable]) {
-            if (isBase[varEq1.variable]) {
-               cVarEq1 = cVarEq1.right();
+   /* Move the equation to the bucket of its new signature */
+   private void setSignature(int equation, long signature) {
+      unindex(equation);
+      signatureOf[equation] = signature;
+      index(equation);
+   }
+
+   private void index(int equation) {
+      int bucket = (int) signatureOf[equation] & (bucketHeads.length - 1);
+      int head = bucketHeads[bucket];
+      bucketOf[equation] = bucket;
+      previousInBucket[equation] = NONE;
+      nextInBucket[equation] = head;
+      if (head != NONE) {
+         previousInBucket[head] = equation;
+      }
+      bucketHeads[bucket] = equation;
+   }
+
+   private void unindex(int equation) {
+      int previous = previousInBucket[equation];
+      int next = nextInBucket[equation];
+      if (previous != NONE) {
+         nextInBucket[previous] = next;
+      } else {
+         bucketHeads[bucketOf[equation]] = next;
+      }
+      if (next != NONE) {
+         previousInBucket[next] = previous;
+      }
+   }
+
+   /* The SplitMix64 finalizer of the variable, the keys are the same in every run */
+   private static long zobristKey(int variable) {
+      long z = (variable + 1) * 0x9E3779B97F4A7C15L;
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+   }
+
+   @Override
+   public boolean sameOffBaseVariables(int eq1, int eq2) {
+      int cVarEq1 = arena.right(arena.rowHeader(eq1));
+      int cVarEq2 = arena.right(arena.rowHeader(eq2));
+
+      while (arena.isData(cVarEq1) && arena.isData(cVarEq2)) {
+         int varEq1 = arena.variable(cVarEq1);
+         int varEq2 = arena.variable(cVarEq2);
+
+         if (isBase[varEq1] || isBase[varEq2]) {
+            if (isBase[varEq1]) {
+               cVarEq1 = arena.right(cVarEq1);
             }
-            if (isBase[varEq2.variable]) {
-               cVarEq2 = cVarEq2.right();
+            if (isBase[varEq2]) {
+               cVarEq2 = arena.right(cVarEq2);
             }
          } else {
-            if (varEq1.variable != varEq2.variable) {
+            if (varEq1 != varEq2) {
                break;
             }
 
-            cVarEq1 = cVarEq1.right();
-            cVarEq2 = cVarEq2.right();
+            cVarEq1 = arena.right(cVarEq1);
+            cVarEq2 = arena.right(cVarEq2);
          }
       }
 
-      if (cVarEq1 instanceof Data && isBase[((Data) cVarEq1).variable]) {
-         cVarEq1 = cVarEq1.right();
+      if (arena.isData(cVarEq1) && isBase[arena.variable(cVarEq1)]) {
+         cVarEq1 = arena.right(cVarEq1);
       }
 
-      if (cVarEq2 instanceof Data && isBase[((Data) cVarEq2).variable]) {
-         cVarEq2 = cVarEq2.right();
+      if (arena.isData(cVarEq2) && isBase[arena.variable(cVarEq2)]) {
+         cVarEq2 = arena.right(cVarEq2);
       }
 
-      return (cVarEq1 instanceof Row && cVarEq2 instanceof Row);
+      return arena.isRowHeader(cVarEq1) && arena.isRowHeader(cVarEq2);
    }
 
    @Override
@@ -511,17 +712,66 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
    }
 
    @Override
-   public Iterable<Integer> activeEquations() {
-      IntList activeEquations = new IntArrayList(nbEquations);
-      for (Row row : root.rows()) {
-         activeEquations.add(row.index);
+   public void forEachActiveEquation(IntConsumer action) {
+      for (int cell = arena.bottom(CellArena.ROOT); arena.isRowHeader(cell); cell = arena.bottom(cell)) {
+         action.accept(arena.equation(cell));
+      }
+   }
+
+   @Override
+   public void forEachUnitEquation(IntConsumer action) {
+      int size = unitEquations.toSortedArray(unitBuffer);
+      for (int i = 0; i < size; i++) {
+         action.accept(unitBuffer[i]);
+      }
+   }
+
+   @Override
+   public int pollUnitEquation() {
+      for (int equation = unitQueue.poll(); equation != IntQueue.EMPTY; equation = unitQueue.poll()) {
+         if (unitEquations.contains(equation)) {
+            return equation;
+         }
+      }
+      return -1;
+   }
+
+   @Override
+   public void queueUnitEquations() {
+      for (int i = 0; i < unitEquations.size(); i++) {
+         unitQueue.add(unitEquations.get(i));
+      }
+   }
+
+   @Override
+   public int pollBinaryEquation() {
+      for (int equation = binaryQueue.poll(); equation != IntQueue.EMPTY; equation = binaryQueue.poll()) {
+         if (nbUnknowns[equation] == 2 && nbTrues[equation] == 0 && arena.isRowActive(equation)) {
+            return equation;
+         }
+      }
+      return -1;
+   }
+
+   /*
+    * Add the equation to the unit equations or remove it from them after its row has been modified, an equation left
+    * with two unknowns is queued for pollBinaryEquation
+    */
+   private void updateUnit(int equation) {
+      if (nbUnknowns[equation] == 1 && arena.isRowActive(equation)) {
+         unitEquations.add(equation);
+         unitQueue.add(equation);
+      } else {
+         unitEquations.remove(equation);
+         if (nbUnknowns[equation] == 2) {
+            binaryQueue.add(equation);
+         }
       }
-      return activeEquations;
    }
 
    @Override
    public int firstOffBase(int pivot) {
-      return eligibleBase(pivot);
+      return fewestEquationsBase(pivot);
    }
 
    @Override
@@ -535,7 +785,95 @@ public class DancingLinksMatrix implements IDancingLinksMatrix {
    }
 
    @Override
-   public IntSet unassignedVars() {
+   public SparseSet unassignedVars() {
       return unassignedVars;
    }
+
+   @Override
+   public void setTrail(Trail trail) {
+      this.trail = trail;
+   }
+
+   @Override
+   public void setOrigins(Origins origins) {
+      this.origins = origins;
+   }
+
+   @Override
+   public void setStatistics(XorStatistics statistics) {
+      this.statistics = statistics;
+   }
+
+   @Override
+   public void setPivotPolicy(PivotPolicy policy) {
+      this.pivotPolicy = policy;
+   }
+
+   @Override
+   public MatrixState snapshot() {
+      IntArrayList[] variables = new IntArrayList[nbEquations];
+      boolean[] activeEquations = new boolean[nbEquations];
+      for (int equation = 0; equation < nbEquations; equation++) {
+         variables[equation] = new IntArrayList();
+         forEachVariableOf(equation, variables[equation]::add);
+         activeEquations[equation] = arena.isRowActive(equation);
+      }
+      boolean[] activeVariables = new boolean[nbVariables];
+      for (int variable = 0; variable < nbVariables; variable++) {
+         activeVariables[variable] = arena.isColumnActive(variable);
+         if (!activeVariables[variable]) {
+            // The cells of a removed column are only linked vertically
+            final int _variable = variable;
+            forEachEquationOf(variable, equation -> variables[equation].add(_variable));
+         }
+      }
+      int[][] rows = new int[nbEquations][];
+      for (int equation = 0; equation < nbEquations; equation++) {
+         rows[equation] = variables[equation].toIntArray();
+         Arrays.sort(rows[equation]);
+      }
+      return new MatrixState(nbVariables, rows, activeEquations, activeVariables, baseOf.clone(), valueOf.clone());
+   }
+
+   @Override
+   public void restoreFrom(MatrixState state) {
+      if (state.nbEquations() != nbEquations || state.nbVariables() != nbVariables) {
+         throw new IllegalArgumentException("The state doesn't have the dimensions of the matrix");
+      }
+      // The state is copied, not computed: nothing is counted nor trailed
+      Trail savedTrail = trail;
+      XorStatistics savedStatistics = statistics;
+      trail = null;
+      statistics = null;
+      try {
+         int[][] equations = new int[nbEquations][];
+         for (int equation = 0; equation < nbEquations; equation++) {
+            equations[equation] = state.variablesOf(equation).clone();
+         }
+         build(equations);
+         for (int variable = 0; variable < nbVariables; variable++) {
+            byte value = state.valueOf(variable);
+            if (value != MatrixState.UNDEFINED) {
+               set(variable, value == MatrixState.TRUE);
+            }
+         }
+         for (int variable = 0; variable < nbVariables; variable++) {
+            if (!state.isActiveVariable(variable)) {
+               removeVariable(variable);
+            }
+         }
+         for (int equation = 0; equation < nbEquations; equation++) {
+            if (!state.isActiveEquation(equation)) {
+               removeEquation(equation);
+            }
+            int base = state.baseVariableOf(equation);
+            if (base != NO_BASE) {
+               setBase(equation, base);
+            }
+         }
+      } finally {
+         trail = savedTrail;
+         statistics = savedStatistics;
+      }
+   }
 }
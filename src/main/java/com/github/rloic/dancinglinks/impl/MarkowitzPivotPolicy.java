@@ -0,0 +1,112 @@
+package com.github.rloic.dancinglinks.impl;
+
+import com.github.rloic.dancinglinks.IDancingLinksMatrix;
+import com.github.rloic.dancinglinks.PivotPolicy;
+import com.github.rloic.dancinglinks.XorStatistics;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Choose the candidate of lowest Markowitz cost (row length - 1) * (column count - 1)
+ * The row is the pivot for all the candidates, so the cost ranks the candidates by their number of equations (as the
+ * matrices do), the ties are broken by the exact fill-in: the cells of the pivot that the xors add to the other
+ * equations of the candidate. The cells saved compared to the first candidate of lowest cost (the choice of the
+ * matrices) are reported as avoided fill-in.
+ */
+public class MarkowitzPivotPolicy implements PivotPolicy {
+
+   /* The statistics the avoided fill-in is reported to (null if it is not reported) */
+   private final XorStatistics statistics;
+
+   /* The variables of the pivot, flagged while a choice is made */
+   private final IntArrayList pivotVariables = new IntArrayList();
+   private final IntConsumer addPivotVariable = pivotVariables::add;
+   private boolean[] inPivot = new boolean[0];
+
+   /* The candidates of the lowest cost, in the order of the pivot */
+   private final IntArrayList candidates = new IntArrayList();
+
+   /* The state of the fill-in computation */
+   private IDancingLinksMatrix matrix;
+   private int pivot;
+   private int fillIn;
+   private int nbShared;
+   private final IntConsumer countShared = variable -> {
+      if (inPivot[variable]) {
+         nbShared += 1;
+      }
+   };
+   private final IntConsumer addFillInOf = this::addFillInOf;
+
+   public MarkowitzPivotPolicy(XorStatistics statistics) {
+      this.statistics = statistics;
+   }
+
+   @Override
+   public int choose(IDancingLinksMatrix matrix, int pivot) {
+      if (inPivot.length < matrix.nbVariables()) {
+         inPivot = new boolean[matrix.nbVariables()];
+      }
+      pivotVariables.clear();
+      candidates.clear();
+      matrix.forEachVariableOf(pivot, addPivotVariable);
+      int rowLength = pivotVariables.size();
+      long bestCost = Long.MAX_VALUE;
+      for (int i = 0; i < rowLength; i++) {
+         int variable = pivotVariables.getInt(i);
+         inPivot[variable] = true;
+         if (!matrix.isBase(variable) && !matrix.isFalse(variable)) {
+            long cost = (long) (rowLength - 1) * (matrix.numberOfEquationsOf(variable) - 1);
+            if (cost < bestCost) {
+               bestCost = cost;
+               candidates.clear();
+               candidates.add(variable);
+            } else if (cost == bestCost) {
+               candidates.add(variable);
+            }
+         }
+      }
+
+      int chosen = candidates.isEmpty() ? -1 : candidates.getInt(0);
+      if (candidates.size() > 1) {
+         this.matrix = matrix;
+         this.pivot = pivot;
+         int firstFillIn = fillInOf(chosen);
+         int bestFillIn = firstFillIn;
+         for (int i = 1; i < candidates.size(); i++) {
+            int candidate = candidates.getInt(i);
+            int candidateFillIn = fillInOf(candidate);
+            if (candidateFillIn < bestFillIn) {
+               bestFillIn = candidateFillIn;
+               chosen = candidate;
+            }
+         }
+         this.matrix = null;
+         if (statistics != null) {
+            statistics.onFillInAvoided(firstFillIn - bestFillIn);
+         }
+      }
+
+      for (int i = 0; i < rowLength; i++) {
+         inPivot[pivotVariables.getInt(i)] = false;
+      }
+      return chosen;
+   }
+
+   /* The cells added by the xors of the pivot with the other equations of the candidate */
+   private int fillInOf(int candidate) {
+      fillIn = 0;
+      matrix.forEachEquationOf(candidate, addFillInOf);
+      return fillIn;
+   }
+
+   private void addFillInOf(int target) {
+      if (target != pivot) {
+         nbShared = 0;
+         matrix.forEachVariableOf(target, countShared);
+         fillIn += pivotVariables.size() - nbShared;
+      }
+   }
+
+}
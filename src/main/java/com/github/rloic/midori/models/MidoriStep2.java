@@ -122,6 +122,7 @@ public class MidoriStep2 {
 
       objective = em.intVar(2 * numberOfActiveSBoxes, 6 * numberOfActiveSBoxes);
       em.sum(flattenedProbabilities, "=", objective);
+      em.postByteXors();
    }
 
    // δSX_{i} = sBox(δX_{i})
@@ -6,8 +6,11 @@ import com.github.rloic.constraints.abstractxor.inferenceengine.InferenceEngine;
 import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
 import com.github.rloic.wip.WeightedConstraint;
 import com.github.rloic.constraints.abstractxor.AbstractXORPropagator;
+import com.github.rloic.constraints.abstractxor.SBoxBudgetPropagator;
+import com.github.rloic.dancinglinks.XorStatistics;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
 
@@ -27,6 +30,8 @@ public abstract class MidoriGlobal {
     /* The variables that must ge instantiated */
     public final BoolVar[] variablesToAssign;
     public final AbstractXORPropagator propagator;
+    public final List<AbstractXORPropagator> propagators;
+    public final XorStatistics statistics;
     public final Int2ObjectMap<List<WeightedConstraint>> constraintsOf;
 
     private final ExtendedModel em;
@@ -174,6 +179,11 @@ public abstract class MidoriGlobal {
         DeconstructedModel dm = em.build(getInferenceEngine(), getRulesApplier());
         this.m = dm.model;
         this.propagator = dm.propagator;
+        this.propagators = dm.propagators;
+        this.statistics = dm.statistics;
+        if (SBoxBudgetPropagator.isEnabled()) {
+            m.post(new Constraint("S-box budget", new SBoxBudgetPropagator(propagators, sBoxes, m.intVar(objStep1))));
+        }
         this.constraintsOf = dm.constraintsOf;
     }
 
@@ -0,0 +1,39 @@
+package com.github.rloic.midori.models.global.adaptive;
+
+import com.github.rloic.midori.models.global.MidoriGlobal;
+import com.github.rloic.constraints.abstractxor.inferenceengine.InferenceEngine;
+import com.github.rloic.constraints.abstractxor.inferenceengine.impl.FullInferenceEngine;
+import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
+import com.github.rloic.constraints.abstractxor.rulesapplier.impl.AdaptiveRulesApplier;
+import org.chocosolver.solver.variables.IntVar;
+
+/**
+ * A Midori model using the globalXor constraint (Arc Consistency at the shallow depths of the search, see
+ * AdaptiveRulesApplier)
+ */
+final public class MidoriGlobalAdaptive extends MidoriGlobal {
+
+   public MidoriGlobalAdaptive(int r, int objStep1) {
+      super(r, objStep1);
+   }
+
+   public MidoriGlobalAdaptive(int r, int objStep1, IntVar[] nbActives) {
+      super(r, objStep1, nbActives);
+   }
+
+   @Override
+   protected String getModelName() {
+      return "Midori Global[adaptive]";
+   }
+
+   @Override
+   protected InferenceEngine getInferenceEngine() {
+      return new FullInferenceEngine();
+   }
+
+   @Override
+   protected RulesApplier getRulesApplier() {
+      return new AdaptiveRulesApplier();
+   }
+
+}
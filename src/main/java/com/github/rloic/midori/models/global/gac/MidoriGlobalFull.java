@@ -4,7 +4,7 @@ import com.github.rloic.midori.models.global.MidoriGlobal;
 import com.github.rloic.constraints.abstractxor.inferenceengine.InferenceEngine;
 import com.github.rloic.constraints.abstractxor.inferenceengine.impl.FullInferenceEngine;
 import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
-import com.github.rloic.constraints.abstractxor.rulesapplier.impl.FullRulesApplier;
+import com.github.rloic.constraints.abstractxor.rulesapplier.impl.CompiledRulesApplier;
 import org.chocosolver.solver.variables.IntVar;
 
 /**
@@ -29,7 +29,7 @@ final public class MidoriGlobalFull extends MidoriGlobal {
     }
 
     protected RulesApplier getRulesApplier() {
-        return new FullRulesApplier();
+        return new CompiledRulesApplier();
     }
 
 }
\ No newline at end of file
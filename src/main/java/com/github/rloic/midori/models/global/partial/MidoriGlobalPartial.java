@@ -4,7 +4,7 @@ import com.github.rloic.midori.models.global.MidoriGlobal;
 import com.github.rloic.constraints.abstractxor.inferenceengine.InferenceEngine;
 import com.github.rloic.constraints.abstractxor.inferenceengine.impl.PartialInferenceEngine;
 import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
-import com.github.rloic.constraints.abstractxor.rulesapplier.impl.PartialRulesApplier;
+import com.github.rloic.constraints.abstractxor.rulesapplier.impl.CompiledPartialRulesApplier;
 import org.chocosolver.solver.variables.IntVar;
 
 /**
@@ -32,7 +32,7 @@ final public class MidoriGlobalPartial extends MidoriGlobal {
 
    @Override
    protected RulesApplier getRulesApplier() {
-      return new PartialRulesApplier();
+      return new CompiledPartialRulesApplier();
    }
 
 }
\ No newline at end of file
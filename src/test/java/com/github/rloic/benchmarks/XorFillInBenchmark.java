@@ -0,0 +1,155 @@
+package com.github.rloic.benchmarks;
+
+import com.github.rloic.aes.models.abstractxor.AESGlobal;
+import com.github.rloic.aes.utils.KeyBits;
+import com.github.rloic.constraints.abstractxor.AbstractXORPropagator;
+import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
+import com.github.rloic.dancinglinks.IDancingLinksMatrix;
+import com.github.rloic.dancinglinks.MatrixFactory;
+import com.github.rloic.dancinglinks.impl.DancingLinksMatrix;
+import com.github.rloic.midori.models.global.gac.MidoriGlobalFull;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.rloic.aes.utils.KeyBits.AES128.AES_128;
+import static com.github.rloic.aes.utils.KeyBits.AES192.AES_192;
+import static com.github.rloic.aes.utils.KeyBits.AES256.AES_256;
+
+/**
+ * Measures the Gauss elimination of the abstract xor systems of AES and Midori
+ * The elimination xors the MixColumns rows together and creates a lot of fill-in. The benchmark reports the mean
+ * and best times of an elimination and the number of cells of the matrix after it. The systems are built for the
+ * numbers of rounds of the searches (3 to 5) and for the full ciphers. A model posts one propagator by independent
+ * system, all of them are eliminated and the figures are their sums.
+ * Usage: XorFillInBenchmark [iterations]
+ */
+public class XorFillInBenchmark {
+
+   private static final int DEFAULT_ITERATIONS = 10;
+   private static final int WARM_UP = 3;
+
+   public static void main(String[] args) {
+      final int iterations = (args.length >= 1) ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+      run("DancingLinksMatrix", DancingLinksMatrix::new, iterations);
+   }
+
+   public static void run(String name, MatrixFactory factory, int iterations) {
+      System.out.println(name);
+      System.out.println("system, equations, variables, cells before, cells after, ms/gauss (mean), ms/gauss (best)");
+      for (int r : new int[]{3, 4, 5, 10}) {
+         bench("AES-128 " + r, aes(r, AES_128), factory, iterations);
+      }
+      for (int r : new int[]{3, 4, 5, 12}) {
+         bench("AES-192 " + r, aes(r, AES_192), factory, iterations);
+      }
+      for (int r : new int[]{3, 4, 5, 14}) {
+         bench("AES-256 " + r, aes(r, AES_256), factory, iterations);
+      }
+      for (int r : new int[]{3, 4, 5, 16}) {
+         bench("Midori-64 " + r, systemsOf(new MidoriGlobalFull(r, r).propagators), factory, iterations);
+      }
+   }
+
+   private static void bench(String system, List<Equations> systems, MatrixFactory factory, int iterations) {
+      for (int i = 0; i < WARM_UP; i++) {
+         for (Equations equations : systems) {
+            RulesApplier.gauss(equations.create(factory));
+         }
+      }
+      long elapsed = 0L;
+      long best = Long.MAX_VALUE;
+      int cellsAfter = 0;
+      for (int i = 0; i < iterations; i++) {
+         long time = 0L;
+         cellsAfter = 0;
+         for (Equations equations : systems) {
+            IDancingLinksMatrix matrix = equations.create(factory);
+            long start = System.nanoTime();
+            RulesApplier.gauss(matrix);
+            time += System.nanoTime() - start;
+            cellsAfter += nbCells(matrix);
+         }
+         elapsed += time;
+         best = Math.min(best, time);
+      }
+      int nbEquations = 0;
+      int nbVariables = 0;
+      int cellsBefore = 0;
+      for (Equations equations : systems) {
+         nbEquations += equations.equations.length;
+         nbVariables += equations.nbVariables;
+         cellsBefore += equations.nbCells();
+      }
+      System.out.printf(
+            "%s, %d, %d, %d, %d, %.3f, %.3f%n",
+            system,
+            nbEquations,
+            nbVariables,
+            cellsBefore,
+            cellsAfter,
+            elapsed / 1e6 / iterations,
+            best / 1e6
+      );
+   }
+
+   private static List<Equations> aes(int r, KeyBits keyBits) {
+      return systemsOf(new AESGlobal(r, r, keyBits, null).propagators);
+   }
+
+   /* The equations of each independent system (one by propagator) */
+   private static List<Equations> systemsOf(List<AbstractXORPropagator> propagators) {
+      List<Equations> systems = new ArrayList<>();
+      for (AbstractXORPropagator propagator : propagators) {
+         systems.add(equationsOf(propagator.matrix));
+      }
+      return systems;
+   }
+
+   /* Read the equations back from a matrix that has not been propagated yet */
+   private static Equations equationsOf(IDancingLinksMatrix matrix) {
+      List<int[]> equations = new ArrayList<>();
+      matrix.forEachActiveEquation(equation -> {
+         IntArrayList variables = new IntArrayList();
+         matrix.forEachVariableOf(equation, variables::add);
+         equations.add(variables.toIntArray());
+      });
+      return new Equations(equations.toArray(new int[0][]), matrix.nbVariables());
+   }
+
+   private static int nbCells(IDancingLinksMatrix matrix) {
+      int nbCells = 0;
+      for (int variable = 0; variable < matrix.nbVariables(); variable++) {
+         nbCells += matrix.numberOfEquationsOf(variable);
+      }
+      return nbCells;
+   }
+
+   private static class Equations {
+      final int[][] equations;
+      final int nbVariables;
+
+      Equations(int[][] equations, int nbVariables) {
+         this.equations = equations;
+         this.nbVariables = nbVariables;
+      }
+
+      IDancingLinksMatrix create(MatrixFactory factory) {
+         int[][] copy = new int[equations.length][];
+         for (int i = 0; i < equations.length; i++) {
+            copy[i] = equations[i].clone();
+         }
+         return factory.create(copy, nbVariables);
+      }
+
+      int nbCells() {
+         int nbCells = 0;
+         for (int[] equation : equations) {
+            nbCells += equation.length;
+         }
+         return nbCells;
+      }
+   }
+
+}
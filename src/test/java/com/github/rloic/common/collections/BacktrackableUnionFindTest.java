@@ -0,0 +1,120 @@
+package com.github.rloic.common.collections;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BacktrackableUnionFindTest {
+
+   private static final int NB_ELEMENTS = 8;
+
+   @Test
+   void should_merge_the_sets() {
+      BacktrackableUnionFind sets = new BacktrackableUnionFind(NB_ELEMENTS);
+      assertTrue(sets.union(0, 1));
+      assertTrue(sets.union(2, 3));
+      assertTrue(sets.union(1, 3));
+      assertFalse(sets.union(0, 2));
+
+      assertEquals(3, sets.size());
+      assertTrue(sets.sameSet(0, 3));
+      assertFalse(sets.sameSet(0, 4));
+      assertEquals(sets.find(0), sets.find(2));
+      assertEquals(4, sets.find(4));
+   }
+
+   @Test
+   void should_iterate_over_the_set_of_an_element() {
+      BacktrackableUnionFind sets = new BacktrackableUnionFind(NB_ELEMENTS);
+      sets.union(0, 1);
+      sets.union(5, 6);
+      sets.union(6, 1);
+
+      for (int element : new int[]{0, 1, 5, 6}) {
+         assertEquals(setOf(0, 1, 5, 6), membersOf(sets, element));
+      }
+      assertEquals(setOf(2), membersOf(sets, 2));
+   }
+
+   @Test
+   void should_undo_the_unions_after_a_mark() {
+      BacktrackableUnionFind sets = new BacktrackableUnionFind(NB_ELEMENTS);
+      sets.union(0, 1);
+      int mark = sets.size();
+      sets.union(2, 3);
+      sets.union(0, 3);
+      sets.union(4, 0);
+
+      sets.undo(mark);
+
+      assertEquals(mark, sets.size());
+      assertTrue(sets.sameSet(0, 1));
+      assertFalse(sets.sameSet(0, 2));
+      assertFalse(sets.sameSet(2, 3));
+      assertFalse(sets.sameSet(0, 4));
+      assertEquals(setOf(0, 1), membersOf(sets, 1));
+      assertEquals(setOf(3), membersOf(sets, 3));
+      assertEquals(setOf(4), membersOf(sets, 4));
+   }
+
+   /* Random unions and undos compared with the sets rebuilt from the unions kept */
+   @Test
+   void should_give_back_the_sets_of_each_mark() {
+      Random random = new Random(42L);
+      BacktrackableUnionFind sets = new BacktrackableUnionFind(NB_ELEMENTS);
+      IntArrayList unions = new IntArrayList();
+      IntArrayList marks = new IntArrayList();
+      for (int step = 0; step < 1000; step++) {
+         int choice = random.nextInt(4);
+         if (choice == 0) {
+            marks.push(sets.size());
+         } else if (choice == 1 && !marks.isEmpty()) {
+            sets.undo(marks.popInt());
+            unions.size(2 * sets.size());
+         } else {
+            int lhs = random.nextInt(NB_ELEMENTS);
+            int rhs = random.nextInt(NB_ELEMENTS);
+            if (sets.union(lhs, rhs)) {
+               unions.add(lhs);
+               unions.add(rhs);
+            }
+         }
+         assertSameSets(rebuild(unions), sets);
+      }
+   }
+
+   private static BacktrackableUnionFind rebuild(IntArrayList unions) {
+      BacktrackableUnionFind sets = new BacktrackableUnionFind(NB_ELEMENTS);
+      for (int i = 0; i < unions.size(); i += 2) {
+         sets.union(unions.getInt(i), unions.getInt(i + 1));
+      }
+      return sets;
+   }
+
+   private static void assertSameSets(BacktrackableUnionFind expected, BacktrackableUnionFind actual) {
+      for (int element = 0; element < NB_ELEMENTS; element++) {
+         assertEquals(membersOf(expected, element), membersOf(actual, element));
+         for (int other = 0; other < NB_ELEMENTS; other++) {
+            assertEquals(expected.sameSet(element, other), actual.sameSet(element, other));
+         }
+      }
+   }
+
+   private static IntSet membersOf(BacktrackableUnionFind sets, int element) {
+      IntSet members = new IntOpenHashSet();
+      sets.forEachInSetOf(element, member -> assertTrue(members.add(member)));
+      return members;
+   }
+
+   private static IntSet setOf(int... elements) {
+      return new IntOpenHashSet(elements);
+   }
+
+}
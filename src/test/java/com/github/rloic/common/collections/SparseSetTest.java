@@ -0,0 +1,131 @@
+package com.github.rloic.common.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SparseSetTest {
+
+   private static final int CAPACITY = 8;
+
+   @Test
+   void should_add_remove_and_contain_the_elements() {
+      SparseSet set = new SparseSet(CAPACITY);
+      assertTrue(set.isEmpty());
+
+      set.add(3);
+      set.add(5);
+      set.add(3);
+      assertEquals(2, set.size());
+      assertTrue(set.contains(3));
+      assertTrue(set.contains(5));
+      assertFalse(set.contains(4));
+
+      set.remove(3);
+      set.remove(3);
+      set.remove(4);
+      assertEquals(1, set.size());
+      assertFalse(set.contains(3));
+      assertTrue(set.contains(5));
+      assertEquals("{5}", set.toString());
+
+      set.clear();
+      assertTrue(set.isEmpty());
+      assertFalse(set.contains(5));
+   }
+
+   @Test
+   void should_only_move_the_size_when_the_removals_are_undone_in_lifo_order() {
+      SparseSet set = full();
+
+      set.remove(2);
+      set.remove(7);
+      set.remove(0);
+      assertEquals(CAPACITY - 3, set.size());
+      int[] remaining = dense(set);
+      set.add(0);
+      set.add(7);
+      set.add(2);
+
+      // The removed elements are just after the remaining ones, in the reverse order of their removal
+      int[] expected = Arrays.copyOf(remaining, CAPACITY);
+      expected[CAPACITY - 3] = 0;
+      expected[CAPACITY - 2] = 7;
+      expected[CAPACITY - 1] = 2;
+      assertArrayEquals(expected, dense(set));
+   }
+
+   @Test
+   void should_iterate_over_a_copy_while_the_set_is_modified() {
+      SparseSet set = full();
+      int[] elements = set.toArray();
+      int nbVisited = 0;
+      for (int element : elements) {
+         // Removing the current element swaps the last one into its place in the dense array
+         set.remove(element);
+         nbVisited += 1;
+      }
+      assertEquals(CAPACITY, nbVisited);
+      assertTrue(set.isEmpty());
+
+      set.add(6);
+      set.add(1);
+      assertArrayEquals(new int[]{6, 1}, elements(set.toArray(), 2));
+      int[] sorted = new int[CAPACITY];
+      assertEquals(2, set.toSortedArray(sorted));
+      assertArrayEquals(new int[]{1, 6}, elements(sorted, 2));
+   }
+
+   @Test
+   void should_behave_as_a_set_on_random_operations() {
+      Random random = new Random(42L);
+      SparseSet set = new SparseSet(CAPACITY);
+      BitSet expected = new BitSet(CAPACITY);
+      for (int i = 0; i < 10_000; i++) {
+         int element = random.nextInt(CAPACITY);
+         if (random.nextBoolean()) {
+            set.add(element);
+            expected.set(element);
+         } else {
+            set.remove(element);
+            expected.clear(element);
+         }
+         assertEquals(expected.cardinality(), set.size());
+         for (int e = 0; e < CAPACITY; e++) {
+            assertEquals(expected.get(e), set.contains(e));
+         }
+         int[] sorted = new int[CAPACITY];
+         int size = set.toSortedArray(sorted);
+         assertArrayEquals(expected.stream().toArray(), elements(sorted, size));
+      }
+   }
+
+   private static SparseSet full() {
+      SparseSet set = new SparseSet(CAPACITY);
+      for (int element = 0; element < CAPACITY; element++) {
+         set.add(element);
+      }
+      return set;
+   }
+
+   /* The order of the dense array, read with get */
+   private static int[] dense(SparseSet set) {
+      int[] dense = new int[set.size()];
+      for (int i = 0; i < dense.length; i++) {
+         dense[i] = set.get(i);
+      }
+      return dense;
+   }
+
+   private static int[] elements(int[] array, int size) {
+      return Arrays.copyOf(array, size);
+   }
+
+}
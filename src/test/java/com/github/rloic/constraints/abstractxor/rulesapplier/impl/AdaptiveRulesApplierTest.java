@@ -0,0 +1,52 @@
+package com.github.rloic.constraints.abstractxor.rulesapplier.impl;
+
+import com.github.rloic.dancinglinks.XorStatistics;
+import org.junit.jupiter.api.Test;
+
+import static com.github.rloic.constraints.abstractxor.rulesapplier.impl.AdaptiveRulesApplier.EXPLORATION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveRulesApplierTest {
+
+   private static final int PERIOD = 4 * EXPLORATION;
+
+   /*
+    * The full level prunes more than the partial level at depth 0 and less at depth 1: the partial level is used until
+    * the first choice, except for the explorations of the full level, then the full level is used at depth 0 only
+    */
+   @Test
+   void should_use_the_full_level_down_to_the_depth_where_it_prunes_less() {
+      XorStatistics statistics = new XorStatistics();
+      AdaptiveRulesApplier applier = new AdaptiveRulesApplier(PERIOD);
+      applier.setStatistics(statistics);
+
+      // The explorations alternate between depth 1 and depth 0
+      for (int synchronization = 1; synchronization < PERIOD; synchronization++) {
+         int depth = (synchronization / EXPLORATION) % 2;
+         boolean exploration = synchronization % EXPLORATION == 0;
+         assertEquals(exploration, synchronize(applier, statistics, depth));
+      }
+      assertEquals(0, applier.getFullDepth());
+
+      // The explorations are at depth 0, the last depth of the full level, and use the partial level
+      for (int synchronization = PERIOD; synchronization < 2 * PERIOD; synchronization++) {
+         int depth = synchronization % 2;
+         boolean exploration = synchronization % EXPLORATION == 0;
+         assertEquals(depth == 0 && !exploration, synchronize(applier, statistics, depth));
+      }
+      assertEquals(1, applier.getFullDepth());
+      assertEquals(1, statistics.getFullDepth());
+      assertEquals(2 * PERIOD - 1, statistics.getNbFullSynchronizations() + statistics.getNbPartialSynchronizations());
+   }
+
+   /* Run a synchronization at the depth and return true if it used the full level */
+   private static boolean synchronize(AdaptiveRulesApplier applier, XorStatistics statistics, int depth) {
+      long nbFullSynchronizations = statistics.getNbFullSynchronizations();
+      applier.setDepth(depth);
+      applier.buildTrueAssignation(0);
+      boolean full = statistics.getNbFullSynchronizations() > nbFullSynchronizations;
+      applier.onSynchronization(100L, full == (depth == 0) ? 10 : 1);
+      return full;
+   }
+
+}
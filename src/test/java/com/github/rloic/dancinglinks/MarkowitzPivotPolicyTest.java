@@ -0,0 +1,49 @@
+package com.github.rloic.dancinglinks;
+
+import com.github.rloic.dancinglinks.impl.BitPackedMatrix;
+import com.github.rloic.dancinglinks.impl.DancingLinksMatrix;
+import com.github.rloic.dancinglinks.impl.MarkowitzPivotPolicy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MarkowitzPivotPolicyTest {
+
+   private static int A = 0;
+   private static int W = 1;
+   private static int G = 2;
+   private static int D = 3;
+   private static int X = 4;
+   private static int Y = 5;
+   private static int Z = 6;
+   private static int U = 7;
+
+   /* W and G belong to two equations, but the xor of the first equation adds less cells to the equation of G */
+   private static int[][] system() {
+      return new int[][]{
+            new int[]{A, W, G, D},
+            new int[]{G, D, X},
+            new int[]{W, Y, Z},
+            new int[]{D, U, X}
+      };
+   }
+
+   @Test
+   void should_choose_the_base_of_lowest_fill_in() {
+      should_choose_the_base_of_lowest_fill_in(DancingLinksMatrix::new);
+      should_choose_the_base_of_lowest_fill_in(BitPackedMatrix::new);
+   }
+
+   private void should_choose_the_base_of_lowest_fill_in(MatrixFactory factory) {
+      IDancingLinksMatrix matrix = factory.create(system(), U + 1);
+      matrix.setBase(0, A);
+      assertEquals(W, matrix.eligibleBase(0));
+
+      XorStatistics statistics = new XorStatistics();
+      matrix.setPivotPolicy(new MarkowitzPivotPolicy(statistics));
+      assertEquals(G, matrix.eligibleBase(0));
+      // The xor with the equation of W would add A, G and D, the one with the equation of G only adds A and W
+      assertEquals(1, statistics.getNbFillInAvoided());
+   }
+
+}
@@ -0,0 +1,87 @@
+package com.github.rloic.dancinglinks;
+
+import com.github.rloic.constraints.abstractxor.GaussCache;
+import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
+import com.github.rloic.dancinglinks.impl.BitPackedMatrix;
+import com.github.rloic.dancinglinks.impl.DancingLinksMatrix;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MatrixStateTest {
+
+   private static int A = 0;
+   private static int B = 1;
+   private static int C = 2;
+   private static int D = 3;
+   private static int E = 4;
+   private static int F = 5;
+   private static int G = 6;
+
+   private static int[][] system() {
+      return new int[][]{
+            new int[]{A, B, C, D},
+            new int[]{C, D, E, F},
+            new int[]{A, F, G},
+            new int[]{B, E, G}
+      };
+   }
+
+   private static IDancingLinksMatrix reduced(MatrixFactory factory) {
+      IDancingLinksMatrix matrix = factory.create(system(), G + 1);
+      RulesApplier.gauss(matrix);
+      matrix.set(C, true);
+      matrix.set(G, false);
+      matrix.removeVariable(G);
+      return matrix;
+   }
+
+   @Test
+   void should_decode_the_encoded_state() {
+      MatrixState state = reduced(DancingLinksMatrix::new).snapshot();
+      byte[] encoded = state.encode();
+
+      assertEquals(state, MatrixState.decode(ByteBuffer.wrap(encoded)));
+   }
+
+   @Test
+   void should_restore_the_same_state_in_both_matrices() {
+      MatrixState state = reduced(DancingLinksMatrix::new).snapshot();
+
+      IDancingLinksMatrix dancingLinks = new DancingLinksMatrix(new int[system().length][0], G + 1);
+      dancingLinks.restoreFrom(state);
+      IDancingLinksMatrix bitPacked = new BitPackedMatrix(new int[system().length][0], G + 1);
+      bitPacked.restoreFrom(state);
+
+      assertEquals(state, dancingLinks.snapshot());
+      assertEquals(state, bitPacked.snapshot());
+      assertEquals(reduced(BitPackedMatrix::new).snapshot(), state);
+      for (int equation = 0; equation < state.nbEquations(); equation++) {
+         assertEquals(dancingLinks.nbUnknowns(equation), bitPacked.nbUnknowns(equation));
+         assertEquals(dancingLinks.nbTrues(equation), bitPacked.nbTrues(equation));
+      }
+   }
+
+   @Test
+   void should_load_the_cached_elimination(@TempDir Path directory) throws IOException {
+      GaussCache cache = new GaussCache(directory);
+      IDancingLinksMatrix expected = new DancingLinksMatrix(system(), G + 1);
+      RulesApplier.gauss(expected);
+
+      IDancingLinksMatrix first = new DancingLinksMatrix(system(), G + 1);
+      cache.gauss(first);
+      assertEquals(1L, Files.list(directory).count());
+      IDancingLinksMatrix second = new BitPackedMatrix(system(), G + 1);
+      cache.gauss(second);
+
+      assertEquals(expected.snapshot(), first.snapshot());
+      assertEquals(expected.snapshot(), second.snapshot());
+   }
+
+}
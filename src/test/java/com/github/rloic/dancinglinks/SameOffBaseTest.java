@@ -0,0 +1,68 @@
+package com.github.rloic.dancinglinks;
+
+import com.github.rloic.dancinglinks.impl.BitPackedMatrix;
+import com.github.rloic.dancinglinks.impl.DancingLinksMatrix;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SameOffBaseTest {
+
+   private static int A = 0;
+   private static int B = 1;
+   private static int C = 2;
+   private static int D = 3;
+   private static int E = 4;
+
+   private static int[][] system() {
+      return new int[][]{
+            new int[]{A, C, D},
+            new int[]{B, C, D},
+            new int[]{C, E}
+      };
+   }
+
+   @Test
+   void should_find_the_equations_with_the_same_off_base_variables() {
+      should_find_the_equations_with_the_same_off_base_variables(DancingLinksMatrix::new);
+      should_find_the_equations_with_the_same_off_base_variables(BitPackedMatrix::new);
+   }
+
+   private void should_find_the_equations_with_the_same_off_base_variables(MatrixFactory factory) {
+      IDancingLinksMatrix matrix = factory.create(system(), E + 1);
+      matrix.setBase(0, A);
+      matrix.setBase(1, B);
+      assertEquals(Arrays.asList(1), sameOffBase(matrix, 0));
+
+      // The off-base variables of the last equation become {C}, as the ones of the first two once D is removed
+      matrix.setBase(2, E);
+      matrix.set(D, false);
+      matrix.removeVariable(D);
+      assertEquals(Arrays.asList(1, 2), sameOffBase(matrix, 0));
+      matrix.restoreVariable(D);
+      assertEquals(Arrays.asList(1), sameOffBase(matrix, 0));
+
+      // The sum of the first two equations only contains their bases
+      matrix.xor(1, 0);
+      assertEquals(Arrays.asList(), sameOffBase(matrix, 0));
+      matrix.xor(1, 0);
+      assertEquals(Arrays.asList(1), sameOffBase(matrix, 0));
+
+      matrix.removeEquation(1);
+      assertEquals(Arrays.asList(), sameOffBase(matrix, 0));
+      matrix.restoreEquation(1);
+      assertEquals(Arrays.asList(1), sameOffBase(matrix, 0));
+      assertEquals(0, matrix.findSameOffBase(1, equation -> true));
+   }
+
+   private List<Integer> sameOffBase(IDancingLinksMatrix matrix, int equation) {
+      IntArrayList equations = new IntArrayList();
+      matrix.forEachSameOffBase(equation, equations::add);
+      return equations;
+   }
+
+}
@@ -0,0 +1,189 @@
+package com.github.rloic.dancinglinks;
+
+import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
+import com.github.rloic.dancinglinks.impl.BitPackedMatrix;
+import com.github.rloic.dancinglinks.impl.DancingLinksMatrix;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrailTest {
+
+   private static final int NB_RUNS = 500;
+   private static final int NB_STEPS = 40;
+
+   private static final int FIX = 0;
+   private static final int XOR = 1;
+   private static final int SWAP_BASE = 2;
+   private static final int REMOVE_VARIABLE = 3;
+   private static final int REMOVE_EQUATION = 4;
+
+   /*
+    * Random sequences of modifications are applied on both matrices with marks taken along the way, the trail must
+    * give back the state of each mark and both matrices must stay in the same state
+    */
+   @Test
+   void should_give_back_the_eliminated_state_on_both_matrices() {
+      Random random = new Random(42L);
+      for (int run = 0; run < NB_RUNS; run++) {
+         int nbVariables = 3 + random.nextInt(12);
+         int[][] equations = randomSystem(random, nbVariables);
+         IDancingLinksMatrix dancingLinks = new DancingLinksMatrix(copy(equations), nbVariables);
+         IDancingLinksMatrix bitPacked = new BitPackedMatrix(copy(equations), nbVariables);
+         RulesApplier.gauss(dancingLinks);
+         RulesApplier.gauss(bitPacked);
+         Trail dancingLinksTrail = new Trail();
+         Trail bitPackedTrail = new Trail();
+         dancingLinks.setTrail(dancingLinksTrail);
+         bitPacked.setTrail(bitPackedTrail);
+
+         List<MatrixState> states = new ArrayList<>();
+         IntArrayList dancingLinksMarks = new IntArrayList();
+         IntArrayList bitPackedMarks = new IntArrayList();
+         for (int step = 0; step < NB_STEPS; step++) {
+            int choice = random.nextInt(10);
+            if (choice == 0 && !states.isEmpty()) {
+               // Backtrack to a random mark
+               int mark = random.nextInt(states.size());
+               dancingLinksTrail.undo(dancingLinks, dancingLinksMarks.getInt(mark));
+               bitPackedTrail.undo(bitPacked, bitPackedMarks.getInt(mark));
+               assertEquals(states.get(mark), dancingLinks.snapshot(), "run " + run);
+               assertEquals(states.get(mark), bitPacked.snapshot(), "run " + run);
+               states.subList(mark, states.size()).clear();
+               dancingLinksMarks.size(mark);
+               bitPackedMarks.size(mark);
+            } else if (choice == 1) {
+               states.add(dancingLinks.snapshot());
+               dancingLinksMarks.add(dancingLinksTrail.size());
+               bitPackedMarks.add(bitPackedTrail.size());
+            } else {
+               long seed = random.nextLong();
+               int operation = random.nextInt(REMOVE_EQUATION + 1);
+               modify(dancingLinks, operation, new Random(seed));
+               modify(bitPacked, operation, new Random(seed));
+               assertEquals(dancingLinks.snapshot(), bitPacked.snapshot(), "run " + run);
+            }
+         }
+         for (int mark = states.size() - 1; mark >= 0; mark--) {
+            dancingLinksTrail.undo(dancingLinks, dancingLinksMarks.getInt(mark));
+            bitPackedTrail.undo(bitPacked, bitPackedMarks.getInt(mark));
+            assertEquals(states.get(mark), dancingLinks.snapshot(), "run " + run);
+            assertEquals(states.get(mark), bitPacked.snapshot(), "run " + run);
+         }
+      }
+   }
+
+   /* Apply a modification that respects the preconditions of the matrices (nothing if there is none) */
+   private void modify(IDancingLinksMatrix matrix, int operation, Random random) {
+      switch (operation) {
+         case FIX: {
+            IntArrayList candidates = new IntArrayList();
+            for (int variable = 0; variable < matrix.nbVariables(); variable++) {
+               if (matrix.isUndefined(variable)) {
+                  candidates.add(variable);
+               }
+            }
+            if (!candidates.isEmpty()) {
+               matrix.set(pick(candidates, random), random.nextBoolean());
+            }
+            break;
+         }
+         case XOR: {
+            IntArrayList equations = activeEquations(matrix);
+            if (equations.size() >= 2) {
+               int target = pick(equations, random);
+               equations.rem(target);
+               matrix.xor(target, pick(equations, random));
+            }
+            break;
+         }
+         case SWAP_BASE: {
+            IntArrayList candidates = new IntArrayList();
+            matrix.forEachActiveEquation(equation -> {
+               if (matrix.baseVariableOf(equation) != -1 && matrix.firstOffBase(equation) != -1) {
+                  candidates.add(equation);
+               }
+            });
+            if (!candidates.isEmpty()) {
+               int pivot = pick(candidates, random);
+               IntArrayList offBase = new IntArrayList();
+               matrix.forEachVariableOf(pivot, variable -> {
+                  if (!matrix.isBase(variable)) {
+                     offBase.add(variable);
+                  }
+               });
+               matrix.setOffBase(matrix.baseVariableOf(pivot));
+               matrix.setBase(pivot, pick(offBase, random));
+            }
+            break;
+         }
+         case REMOVE_VARIABLE: {
+            IntArrayList candidates = new IntArrayList();
+            MatrixState state = matrix.snapshot();
+            for (int variable = 0; variable < matrix.nbVariables(); variable++) {
+               if (matrix.isFalse(variable) && !matrix.isBase(variable) && state.isActiveVariable(variable)) {
+                  candidates.add(variable);
+               }
+            }
+            if (!candidates.isEmpty()) {
+               matrix.removeVariable(pick(candidates, random));
+            }
+            break;
+         }
+         case REMOVE_EQUATION: {
+            IntArrayList candidates = new IntArrayList();
+            matrix.forEachActiveEquation(equation -> {
+               if (matrix.nbUnknowns(equation) == 0) {
+                  candidates.add(equation);
+               }
+            });
+            if (!candidates.isEmpty()) {
+               matrix.removeEquation(pick(candidates, random));
+            }
+            break;
+         }
+         default:
+            throw new IllegalArgumentException("Unknown operation " + operation);
+      }
+   }
+
+   private static IntArrayList activeEquations(IDancingLinksMatrix matrix) {
+      IntArrayList equations = new IntArrayList();
+      matrix.forEachActiveEquation(equations::add);
+      return equations;
+   }
+
+   private static int pick(IntArrayList candidates, Random random) {
+      return candidates.getInt(random.nextInt(candidates.size()));
+   }
+
+   private static int[][] randomSystem(Random random, int nbVariables) {
+      int[][] equations = new int[1 + random.nextInt(8)][];
+      for (int i = 0; i < equations.length; i++) {
+         IntArrayList variables = new IntArrayList();
+         int length = 2 + random.nextInt(Math.min(4, nbVariables - 1));
+         while (variables.size() < length) {
+            int variable = random.nextInt(nbVariables);
+            if (!variables.contains(variable)) {
+               variables.add(variable);
+            }
+         }
+         equations[i] = variables.toIntArray();
+      }
+      return equations;
+   }
+
+   private static int[][] copy(int[][] equations) {
+      int[][] copy = new int[equations.length][];
+      for (int i = 0; i < equations.length; i++) {
+         copy[i] = equations[i].clone();
+      }
+      return copy;
+   }
+
+}
@@ -0,0 +1,106 @@
+package com.github.rloic.dancinglinks;
+
+import com.github.rloic.constraints.abstractxor.AbstractXORPropagator;
+import com.github.rloic.constraints.abstractxor.inferenceengine.impl.FullInferenceEngine;
+import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
+import com.github.rloic.constraints.abstractxor.rulesapplier.impl.CompiledRulesApplier;
+import com.github.rloic.dancinglinks.impl.DancingLinksMatrix;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.variables.BoolVar;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class XorStatisticsTest {
+
+   @Test
+   void should_count_the_work_of_the_elimination() {
+      XorStatistics statistics = new XorStatistics();
+      IDancingLinksMatrix matrix = new DancingLinksMatrix(new int[][]{{0, 1, 2}, {0, 2, 3}}, 4);
+      matrix.setStatistics(statistics);
+
+      // {0, 2, 3} + {0, 1, 2} = {1, 3} then {0, 1, 2} + {1, 3} = {0, 2, 3}, each xor adds the cell of 3
+      RulesApplier.gauss(matrix);
+
+      assertEquals(2, statistics.getNbXors());
+      assertEquals(2, statistics.getNbBaseChanges());
+      assertEquals(2, statistics.getNbFillIn());
+   }
+
+   /* The second propagator loads the reduced basis of the shared system without running the elimination */
+   @Test
+   void should_not_count_the_elimination_loaded_from_the_shared_system() throws ContradictionException {
+      XorStatistics first = propagateRoot();
+      XorStatistics second = propagateRoot();
+
+      assertTrue(first.getNbBaseChanges() > 0);
+      assertEquals(0, second.getNbBaseChanges());
+      assertEquals(0, second.getNbXors());
+      assertEquals(0, second.getNbFillIn());
+   }
+
+   @Test
+   void should_count_the_inferences_and_the_failures_of_a_search() {
+      Model model = new Model();
+      BoolVar[] vars = model.boolVarArray(4);
+      model.arithm(vars[0], "!=", vars[1]).post();
+      model.arithm(vars[1], "=", vars[2]).post();
+      Solver solver = model.getSolver();
+      XorStatistics statistics = new XorStatistics();
+      model.post(new Constraint("GlobalXor", new AbstractXORPropagator(
+            vars,
+            new BoolVar[][]{{vars[0], vars[1], vars[3]}, {vars[3], vars[2]}},
+            new FullInferenceEngine(),
+            new CompiledRulesApplier(),
+            DancingLinksMatrix::new,
+            solver,
+            statistics
+      )));
+      solver.setSearch(Search.inputOrderLBSearch(vars));
+      while (solver.solve()) {
+         assertEquals(0, vars[0].getValue());
+      }
+
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      solver.setOut(new PrintStream(output));
+      statistics.printShortStatistics(solver);
+
+      // The assignments of the second branch make the sum of the equations invalid
+      assertEquals(1, statistics.getNbFailures());
+      assertEquals(3, statistics.getNbInferences());
+      assertEquals(2, statistics.getNbXors());
+      assertTrue(statistics.getGaussNanos() > 0);
+      String[] lines = output.toString().split("\\R");
+      assertEquals(2, lines.length);
+      assertTrue(lines[0].contains("1 Solutions"));
+      assertEquals(statistics.toString(), lines[1]);
+   }
+
+   /* Propagate the root node of a propagator on equations that no other test uses and return its statistics */
+   private static XorStatistics propagateRoot() throws ContradictionException {
+      Model model = new Model();
+      BoolVar[] vars = model.boolVarArray(6);
+      Solver solver = model.getSolver();
+      XorStatistics statistics = new XorStatistics();
+      model.post(new Constraint("GlobalXor", new AbstractXORPropagator(
+            vars,
+            new BoolVar[][]{{vars[0], vars[1], vars[5]}, {vars[1], vars[2], vars[5]}, {vars[2], vars[3], vars[4]}},
+            new FullInferenceEngine(),
+            new CompiledRulesApplier(),
+            DancingLinksMatrix::new,
+            solver,
+            statistics
+      )));
+      solver.propagate();
+      return statistics;
+   }
+
+}
@@ -0,0 +1,104 @@
+package com.github.rloic.paper;
+
+import com.github.rloic.constraints.abstractxor.AbstractXORPropagator;
+import com.github.rloic.constraints.abstractxor.inferenceengine.InferenceEngine;
+import com.github.rloic.constraints.abstractxor.inferenceengine.impl.FullInferenceEngine;
+import com.github.rloic.constraints.abstractxor.rulesapplier.RulesApplier;
+import com.github.rloic.constraints.abstractxor.rulesapplier.impl.AdaptiveRulesApplier;
+import com.github.rloic.constraints.abstractxor.rulesapplier.impl.CompiledRulesApplier;
+import com.github.rloic.constraints.abstractxor.rulesapplier.impl.FullRulesApplier;
+import com.github.rloic.dancinglinks.impl.DancingLinksMatrix;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.variables.BoolVar;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompiledRulesApplierTest {
+
+   private static final int[][] SYSTEM = {
+         {0, 1, 2},
+         {2, 3, 4},
+         {4, 5, 6},
+         {1, 3, 7},
+         {5, 7, 8},
+         {0, 6, 9},
+         {8, 9, 10, 11}
+   };
+
+   /* Pairs of variables that are equal, so that both are instantiated by the same propagation */
+   private static final int[][] EQUALITIES = {
+         {0, 4},
+         {3, 9},
+         {6, 10}
+   };
+
+   @Test
+   void should_search_as_the_full_rules_applier() {
+      assertEquals(
+            solve(FullInferenceEngine::new, FullRulesApplier::new, new int[0][]),
+            solve(FullInferenceEngine::new, CompiledRulesApplier::new, new int[0][])
+      );
+   }
+
+   @Test
+   void should_find_the_same_solutions_with_batched_assignations() {
+      List<String> expected = solve(FullInferenceEngine::new, FullRulesApplier::new, EQUALITIES);
+      List<String> actual = solve(FullInferenceEngine::new, CompiledRulesApplier::new, EQUALITIES);
+      // The compiled rules infer from a batch once all its variables are fixed, so only the solutions are compared
+      assertEquals(expected.subList(0, expected.size() - 1), actual.subList(0, actual.size() - 1));
+   }
+
+   @Test
+   void should_find_the_same_solutions_with_the_adaptive_rules_applier() {
+      List<String> expected = solve(FullInferenceEngine::new, FullRulesApplier::new, EQUALITIES);
+      List<String> actual = solve(FullInferenceEngine::new, AdaptiveRulesApplier::new, EQUALITIES);
+      // The level of the rules may change the number of nodes, but never the solutions
+      assertEquals(expected.subList(0, expected.size() - 1), actual.subList(0, actual.size() - 1));
+   }
+
+   /* A short period changes the levels many times during the search */
+   @Test
+   void should_find_the_same_solutions_when_the_adaptive_rules_applier_changes_its_levels() {
+      List<String> expected = solve(FullInferenceEngine::new, FullRulesApplier::new, EQUALITIES);
+      List<String> actual = solve(FullInferenceEngine::new, () -> new AdaptiveRulesApplier(8), EQUALITIES);
+      assertEquals(expected.subList(0, expected.size() - 1), actual.subList(0, actual.size() - 1));
+   }
+
+   /* The solutions, followed by the number of nodes of the search */
+   private List<String> solve(Supplier<InferenceEngine> engine, Supplier<RulesApplier> rulesApplier, int[][] equalities) {
+      Model model = new Model();
+      BoolVar[] vars = model.boolVarArray(12);
+      for (int[] equality : equalities) {
+         model.arithm(vars[equality[0]], "=", vars[equality[1]]).post();
+      }
+      BoolVar[][] equations = new BoolVar[SYSTEM.length][];
+      for (int i = 0; i < SYSTEM.length; i++) {
+         equations[i] = new BoolVar[SYSTEM[i].length];
+         for (int j = 0; j < SYSTEM[i].length; j++) {
+            equations[i][j] = vars[SYSTEM[i][j]];
+         }
+      }
+      Solver solver = model.getSolver();
+      model.post(new Constraint("GlobalXor", new AbstractXORPropagator(
+            vars, equations, engine.get(), rulesApplier.get(), DancingLinksMatrix::new, solver
+      )));
+      solver.setSearch(Search.inputOrderLBSearch(vars));
+
+      List<String> results = new ArrayList<>();
+      while (solver.solve()) {
+         results.add(Arrays.toString(Arrays.stream(vars).mapToInt(BoolVar::getValue).toArray()));
+      }
+      results.add("nodes=" + solver.getNodeCount());
+      return results;
+   }
+
+}
@@ -5,6 +5,9 @@ import com.github.rloic.constraints.abstractxor.rulesapplier.impl.FullRulesAppli
 import com.github.rloic.common.utils.Logger;
 import com.github.rloic.common.utils.Pair;
 import com.github.rloic.constraints.abstractxor.AbstractXORPropagator;
+import com.github.rloic.dancinglinks.MatrixFactory;
+import com.github.rloic.dancinglinks.impl.BitPackedMatrix;
+import com.github.rloic.dancinglinks.impl.DancingLinksMatrix;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.Constraint;
@@ -18,6 +21,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import static com.github.rloic.common.utils.Logger.TraceLogger.TRACE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class FullRulesApplierTest {
@@ -113,6 +117,23 @@ class FullRulesApplierTest {
       assertTrue(naive.containsAll(gXor));
    }
 
+   @Test
+   void should_find_the_same_solutions_with_the_bit_packed_matrix() {
+      int[][][] systems = new int[][][]{
+            new int[][]{new int[]{A, C, D}, new int[]{B, C, D}},
+            new int[][]{new int[]{A, C, D}, new int[]{B, C, E}},
+            new int[][]{new int[]{A, B, C}, new int[]{C, D, E}, new int[]{E, F, G}},
+            new int[][]{new int[]{A, C, E, F}, new int[]{B, C, E, F}, new int[]{D, E, F}},
+            new int[][]{new int[]{A, B, C, D}, new int[]{C, D, E, F}, new int[]{A, F, G}, new int[]{B, G, H, I}}
+      };
+
+      for (int[][] system : systems) {
+         Set<String> dancingLinks = solveSystem(I + 1, system, DancingLinksMatrix::new)._1;
+         Set<String> bitPacked = solveSystem(I + 1, system, BitPackedMatrix::new)._1;
+         assertEquals(dancingLinks, bitPacked);
+      }
+   }
+
    private Set<String> collectSolutions(Model m, BoolVar[] vars) {
       Solver s = m.getSolver();
       Set<String> solutions = new HashSet<>();
@@ -123,6 +144,10 @@ class FullRulesApplierTest {
    }
 
    private Pair<Set<String>, Set<String>> solveSystem(int nbVars, int[][] equations) {
+      return solveSystem(nbVars, equations, DancingLinksMatrix::new);
+   }
+
+   private Pair<Set<String>, Set<String>> solveSystem(int nbVars, int[][] equations, MatrixFactory matrixFactory) {
       Model naive = new Model();
       BoolVar[] naiveVars = naive.boolVarArray(nbVars);
       for (int[] equation : equations) {
@@ -142,7 +167,7 @@ class FullRulesApplierTest {
             gXorEquations[i][j] = gXorVars[equations[i][j]];
          }
       }
-      gXor.post(new Constraint("GlobalXor", new AbstractXORPropagator(gXorVars, gXorEquations, new FullInferenceEngine(), new FullRulesApplier(), gXor.getSolver())));
+      gXor.post(new Constraint("GlobalXor", new AbstractXORPropagator(gXorVars, gXorEquations, new FullInferenceEngine(), new FullRulesApplier(), matrixFactory, gXor.getSolver())));
 
       return new Pair<>(collectSolutions(naive, naiveVars), collectSolutions(gXor, gXorVars));
    }
@@ -0,0 +1,77 @@
+package com.github.rloic.xorconstraint;
+
+import com.github.rloic.constraints.abstractxor.AbstractXORPropagator;
+import com.github.rloic.constraints.abstractxor.inferenceengine.impl.FullInferenceEngine;
+import com.github.rloic.constraints.abstractxor.rulesapplier.impl.CompiledRulesApplier;
+import com.github.rloic.dancinglinks.XorStatistics;
+import com.github.rloic.dancinglinks.impl.DancingLinksMatrix;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.BoolVar;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EquivalencesTest {
+
+   /*
+    * The equation {a, b, c} with c = 0 is valid iff a = b, so a = 1 fixes b through the recorded equality. Once the
+    * branch of c = 0 is left, the equality is forgotten: with c = 1, a = 1 leaves b free.
+    */
+   @Test
+   void should_fix_the_equal_variable_until_the_branch_is_left() throws ContradictionException {
+      Model model = new Model();
+      BoolVar a = model.boolVar("a");
+      BoolVar b = model.boolVar("b");
+      BoolVar c = model.boolVar("c");
+      Solver solver = model.getSolver();
+      XorStatistics statistics = new XorStatistics();
+      AbstractXORPropagator propagator = new AbstractXORPropagator(
+            new BoolVar[]{a, b, c},
+            new BoolVar[][]{{a, b, c}},
+            new FullInferenceEngine(),
+            new CompiledRulesApplier(),
+            DancingLinksMatrix::new,
+            solver,
+            statistics
+      );
+      model.post(new Constraint("GlobalXor", propagator));
+      IEnvironment environment = model.getEnvironment();
+      solver.propagate();
+
+      // The branches are opened and closed as the solver does it
+      environment.worldPush();
+      propagator.beforeDownBranch(true);
+      c.instantiateTo(0, Cause.Null);
+      solver.propagate();
+      environment.worldPush();
+      propagator.beforeDownBranch(true);
+      a.instantiateTo(1, Cause.Null);
+      solver.propagate();
+
+      assertTrue(b.isInstantiatedTo(1));
+      assertEquals(1, statistics.getNbEquivalenceInferences());
+
+      propagator.beforeUpBranch();
+      environment.worldPop();
+      propagator.beforeUpBranch();
+      environment.worldPop();
+
+      environment.worldPush();
+      propagator.beforeDownBranch(true);
+      c.instantiateTo(1, Cause.Null);
+      solver.propagate();
+      a.instantiateTo(1, Cause.Null);
+      solver.propagate();
+
+      assertFalse(b.isInstantiated());
+      assertEquals(1, statistics.getNbEquivalenceInferences());
+   }
+
+}
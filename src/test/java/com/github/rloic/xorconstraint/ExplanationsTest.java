@@ -0,0 +1,100 @@
+package com.github.rloic.xorconstraint;
+
+import com.github.rloic.constraints.abstractxor.AbstractXORPropagator;
+import com.github.rloic.constraints.abstractxor.inferenceengine.impl.FullInferenceEngine;
+import com.github.rloic.constraints.abstractxor.rulesapplier.impl.CompiledRulesApplier;
+import com.github.rloic.filters.EnumFilter;
+import com.github.rloic.midori.models.global.MidoriGlobal;
+import com.github.rloic.midori.models.global.gac.MidoriGlobalFull;
+import org.chocosolver.sat.PropSat;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.variables.BoolVar;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExplanationsTest {
+
+   @Test
+   void should_find_the_same_solutions_with_the_learnt_clauses() {
+      assertEquals(midoriSolutions(false), midoriSolutions(true));
+   }
+
+   /*
+    * x1 != x0 and x2 = x1, the root equations are {x0, x1, x3} and {x3, x2}: their sum {x0, x1, x2} is invalid once
+    * x0 = 1 and x1 = x2 = 0, so the learnt clause is (x0 = 0 or x1 = 1 or x2 = 1) and x0 = 0 is the only solution
+    */
+   @Test
+   void should_learn_the_values_of_the_sum_of_the_origins_of_the_invalid_equation() {
+      Model model = new Model();
+      BoolVar[] vars = model.boolVarArray(4);
+      model.arithm(vars[0], "!=", vars[1]).post();
+      model.arithm(vars[1], "=", vars[2]).post();
+      Solver solver = model.getSolver();
+      AbstractXORPropagator propagator = new AbstractXORPropagator(
+            vars,
+            new BoolVar[][]{{vars[0], vars[1], vars[3]}, {vars[3], vars[2]}},
+            new FullInferenceEngine(),
+            new CompiledRulesApplier(),
+            solver
+      );
+      List<int[]> clauses = new ArrayList<>();
+      PropSat recorder = new PropSat(model) {
+         @Override
+         public void addLearnt(int... literals) {
+            clauses.add(literals.clone());
+         }
+      };
+      propagator.learnExplanations(recorder);
+      model.post(new Constraint("GlobalXor", propagator));
+      solver.setSearch(Search.inputOrderLBSearch(vars));
+
+      int nbSolutions = 0;
+      while (solver.solve()) {
+         nbSolutions += 1;
+      }
+
+      assertEquals(1, nbSolutions);
+      assertEquals(1, clauses.size());
+      int[] expected = {
+            recorder.makeLiteral(vars[0], false),
+            recorder.makeLiteral(vars[1], true),
+            recorder.makeLiteral(vars[2], true)
+      };
+      Arrays.sort(expected);
+      int[] actual = clauses.get(0);
+      Arrays.sort(actual);
+      assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+   }
+
+   private List<String> midoriSolutions(boolean learn) {
+      MidoriGlobal midori = new MidoriGlobalFull(3, 3);
+      if (learn) {
+         for (AbstractXORPropagator propagator : midori.propagators) {
+            propagator.learnExplanations(midori.m.getMinisat().getPropSat());
+         }
+      }
+      Solver solver = midori.m.getSolver();
+      solver.setSearch(Search.intVarSearch(midori.sBoxes), Search.intVarSearch(midori.variablesToAssign));
+      solver.plugMonitor(new EnumFilter(midori.m, midori.sBoxes, 3));
+      List<String> solutions = new ArrayList<>();
+      while (solver.solve()) {
+         StringBuilder solution = new StringBuilder();
+         for (BoolVar sBox : midori.sBoxes) {
+            solution.append(sBox.getValue());
+         }
+         solutions.add(solution.toString());
+      }
+      Collections.sort(solutions);
+      return solutions;
+   }
+
+}
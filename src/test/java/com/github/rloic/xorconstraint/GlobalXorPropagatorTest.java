@@ -1,5 +1,9 @@
 package com.github.rloic.xorconstraint;
 
+import com.github.rloic.common.DeconstructedModel;
+import com.github.rloic.common.ExtendedModel;
+import com.github.rloic.constraints.abstractxor.inferenceengine.impl.FullInferenceEngine;
+import com.github.rloic.constraints.abstractxor.rulesapplier.impl.FullRulesApplier;
 import org.chocosolver.solver.ICause;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.Solver;
@@ -7,6 +11,7 @@ import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.learn.ExplanationForSignedClause;
 import org.chocosolver.solver.learn.Implications;
+import org.chocosolver.solver.search.strategy.Search;
 import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.util.ESat;
@@ -28,6 +33,95 @@ class GlobalXorPropagatorTest {
 
     }
 
+    @Test
+    void should_post_one_propagator_by_independent_system() {
+        ExtendedModel em = new ExtendedModel("Independent systems");
+        BoolVar[] vars = em.boolVarArray("x", 8);
+        em.abstractXor(vars[0], vars[1], vars[2]);
+        em.abstractXor(vars[5], vars[6], vars[7]);
+        em.abstractXor(vars[2], vars[3], vars[4]);
+        DeconstructedModel dm = em.build(new FullInferenceEngine(), new FullRulesApplier());
+
+        assertEquals(2, dm.propagators.size());
+        assertEquals(5, dm.propagator.getNbVars());
+
+        int nbSolutions = 0;
+        dm.model.getSolver().setSearch(Search.inputOrderLBSearch(vars));
+        while (dm.model.getSolver().solve()) {
+            nbSolutions += 1;
+        }
+        assertEquals(countAbstractSolutions(new int[][]{{0, 1, 2}, {5, 6, 7}, {2, 3, 4}}, 8), nbSolutions);
+    }
+
+    @Test
+    void should_presolve_the_binary_and_repeated_equations() {
+        ExtendedModel em = new ExtendedModel("Presolve");
+        BoolVar[] vars = em.boolVarArray("x", 6);
+        em.abstractXor(vars[0], vars[1]);
+        em.abstractXor(vars[1], vars[2], vars[3]);
+        em.abstractXor(vars[0], vars[2], vars[3]);
+        em.abstractXor(vars[3], vars[4], vars[5]);
+        DeconstructedModel dm = em.build(new FullInferenceEngine(), new FullRulesApplier());
+
+        // x1 is replaced by x0 and the second equation is then a copy of the third one
+        assertEquals(1, dm.propagators.size());
+        assertEquals(5, dm.propagator.getNbVars());
+        // The equality x0 = x1 is weighted with the two declared xors of each variable
+        assertEquals(3, dm.constraintsOf.get(vars[0].getId()).size());
+        assertEquals(3, dm.constraintsOf.get(vars[1].getId()).size());
+
+        int nbSolutions = 0;
+        dm.model.getSolver().setSearch(Search.inputOrderLBSearch(vars));
+        while (dm.model.getSolver().solve()) {
+            assertEquals(vars[0].getValue(), vars[1].getValue());
+            nbSolutions += 1;
+        }
+        assertEquals(countAbstractSolutions(new int[][]{{0, 1}, {1, 2, 3}, {0, 2, 3}, {3, 4, 5}}, 6), nbSolutions);
+    }
+
+    @Test
+    void should_solve_the_byte_xors_as_one_system() {
+        ExtendedModel em = new ExtendedModel("Byte xors");
+        IntVar[] vars = new IntVar[5];
+        for (int i = 0; i < vars.length; i++) {
+            vars[i] = em.intVar("x[" + i + "]", 0, 7);
+        }
+        em.byteXor(vars[0], vars[1], vars[2]);
+        em.byteXor(vars[1], vars[2], vars[3], vars[4]);
+        em.byteXor(vars[0], vars[0], vars[3]);
+        em.postByteXors();
+
+        int nbSolutions = 0;
+        Solver solver = em.getModel().getSolver();
+        solver.setSearch(Search.inputOrderLBSearch(vars));
+        while (solver.solve()) {
+            assertEquals(0, vars[0].getValue() ^ vars[1].getValue() ^ vars[2].getValue());
+            assertEquals(0, vars[1].getValue() ^ vars[2].getValue() ^ vars[3].getValue() ^ vars[4].getValue());
+            assertEquals(0, vars[3].getValue());
+            nbSolutions += 1;
+        }
+        // x0 and x1 are free, x2 = x0 ^ x1, x3 = 0 and x4 = x0
+        assertEquals(64, nbSolutions);
+        // Once x0 and x1 are known, the other variables are fixed without search
+        assertEquals(0, solver.getMeasures().getFailCount());
+    }
+
+    private int countAbstractSolutions(int[][] equations, int nbVariables) {
+        int count = 0;
+        for (int assignment = 0; assignment < 1 << nbVariables; assignment++) {
+            boolean valid = true;
+            for (int[] equation : equations) {
+                int nbTrues = 0;
+                for (int variable : equation) {
+                    nbTrues += (assignment >> variable) & 1;
+                }
+                valid &= nbTrues != 1;
+            }
+            if (valid) count += 1;
+        }
+        return count;
+    }
+
     private String toString(BoolVar[] variables) {
         return Arrays.stream(variables)
                 .map(IntVar::getValue)
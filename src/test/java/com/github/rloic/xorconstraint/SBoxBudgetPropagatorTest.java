@@ -0,0 +1,102 @@
+package com.github.rloic.xorconstraint;
+
+import com.github.rloic.constraints.abstractxor.AbstractXORPropagator;
+import com.github.rloic.constraints.abstractxor.SBoxBudgetPropagator;
+import com.github.rloic.constraints.abstractxor.inferenceengine.impl.FullInferenceEngine;
+import com.github.rloic.constraints.abstractxor.rulesapplier.impl.CompiledRulesApplier;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.variables.BoolVar;
+import org.chocosolver.solver.variables.IntVar;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SBoxBudgetPropagatorTest {
+
+   /*
+    * x and y are true and the S-boxes are unknown: the equations {x, s0, s1} and {y, s2, s3} need one more active S-box
+    * each and share no S-box, so two S-boxes are needed although none is active yet
+    */
+   @Test
+   void should_fail_when_the_needed_s_boxes_exceed_the_budget() {
+      Model model = new Model();
+      IntVar budget = model.intVar(0, 1);
+      post(model, budget, true, true);
+
+      assertThrows(ContradictionException.class, () -> model.getSolver().propagate());
+   }
+
+   @Test
+   void should_fail_before_the_search() {
+      long withBudget = nbNodesToProveInfeasibility(true);
+      long withoutBudget = nbNodesToProveInfeasibility(false);
+      assertEquals(0, withBudget);
+      assertTrue(withoutBudget > withBudget);
+   }
+
+   @Test
+   void should_raise_the_lower_bound_of_the_budget() throws ContradictionException {
+      Model model = new Model();
+      IntVar budget = model.intVar(0, 4);
+      post(model, budget, true, true);
+
+      model.getSolver().propagate();
+      assertEquals(2, budget.getLB());
+   }
+
+   @Test
+   void should_not_bound_the_budget_with_the_equations_without_true() throws ContradictionException {
+      Model model = new Model();
+      IntVar budget = model.intVar(0, 4);
+      post(model, budget, false, true);
+
+      model.getSolver().propagate();
+      assertEquals(0, budget.getLB());
+   }
+
+   /* Post {x, s0, s1} and {y, s2, s3} with x = y fixed, and the budget of the S-boxes (if withBudget) */
+   private static BoolVar[] post(Model model, IntVar budget, boolean xy, boolean withBudget) {
+      BoolVar[] vars = model.boolVarArray(6);
+      BoolVar[] sBoxes = {vars[2], vars[3], vars[4], vars[5]};
+      model.arithm(vars[0], "=", xy ? 1 : 0).post();
+      model.arithm(vars[1], "=", xy ? 1 : 0).post();
+      Solver solver = model.getSolver();
+      AbstractXORPropagator xor = new AbstractXORPropagator(
+            vars,
+            new BoolVar[][]{{vars[0], vars[2], vars[3]}, {vars[1], vars[4], vars[5]}},
+            new FullInferenceEngine(),
+            new CompiledRulesApplier(),
+            solver
+      );
+      model.post(new Constraint("GlobalXor", xor));
+      if (withBudget) {
+         model.post(new Constraint(
+               "S-box budget",
+               new SBoxBudgetPropagator(Collections.singletonList(xor), sBoxes, budget)
+         ));
+      }
+      return sBoxes;
+   }
+
+   /* The number of nodes to prove that no assignment uses at most one S-box */
+   private static long nbNodesToProveInfeasibility(boolean withBudget) {
+      Model model = new Model();
+      IntVar budget = model.intVar(0, 1);
+      BoolVar[] sBoxes = post(model, budget, true, withBudget);
+      model.sum(sBoxes, "=", budget).post();
+      Solver solver = model.getSolver();
+      solver.setSearch(Search.inputOrderUBSearch(sBoxes));
+      assertFalse(solver.solve());
+      return solver.getNodeCount();
+   }
+
+}